@@ -34,6 +34,18 @@ public final class LWJGLVersionChecker {
         }
     }
 
+    /**
+     * Returns the version of lwjgl3-awt recorded in its build metadata, or {@code "unknown"} if it cannot be determined.
+     */
+    public static String libraryVersion() {
+        BuildMetadata metadata = loadBuildMetadata();
+        return libraryVersion(metadata);
+    }
+
+    private static String libraryVersion(BuildMetadata metadata) {
+        return metadata != null && isResolvedVersion(metadata.libraryVersion) ? metadata.libraryVersion : "unknown";
+    }
+
     private static boolean initialize() {
         try {
             BuildMetadata metadata = loadBuildMetadata();
@@ -97,9 +109,7 @@ public final class LWJGLVersionChecker {
             return false;
         }
 
-        String libraryVersion = isResolvedVersion(metadata.libraryVersion)
-                ? metadata.libraryVersion
-                : "unknown";
+        String libraryVersion = libraryVersion(metadata);
         StringBuilder warning = new StringBuilder(384);
         warning.append("[LWJGLX] [WARN] Incompatible LWJGL module versions detected.\n")
                 .append("lwjgl3-awt ").append(libraryVersion)
@@ -3,13 +3,27 @@ package org.lwjgl.opengl.awt;
 import org.lwjgl.awt.internal.LWJGLVersionChecker;
 import org.lwjgl.awthacks.NonClearGraphics;
 import org.lwjgl.awthacks.NonClearGraphics2D;
+import org.lwjgl.opengl.GL;
+import org.lwjgl.opengl.GLCapabilities;
 import org.lwjgl.system.Platform;
 
 import java.awt.*;
 import java.awt.event.ComponentAdapter;
 import java.awt.event.ComponentEvent;
 import java.awt.event.ComponentListener;
+import java.awt.event.HierarchyBoundsAdapter;
+import java.awt.event.HierarchyEvent;
+import java.awt.event.WindowAdapter;
+import java.awt.event.WindowEvent;
+import java.util.Objects;
 import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.locks.ReentrantLock;
 
 /**
@@ -27,6 +41,36 @@ public abstract class AWTGLCanvas extends Canvas {
         LWJGLVersionChecker.check();
     }
 
+    /**
+     * Whether a canvas can currently be seen, as reported by {@link #getVisibility()}.
+     */
+    public enum Visibility {
+        /** The canvas is showing and at least part of it lies within its ancestors' bounds. */
+        VISIBLE,
+        /** The canvas or one of its ancestors is not visible, or the canvas has no native peer. */
+        HIDDEN,
+        /** The frame containing the canvas is iconified. */
+        ICONIFIED,
+        /** The canvas has no area. */
+        ZERO_SIZE,
+        /** The canvas lies entirely outside the bounds of one of its ancestors, e.g. a scrolled viewport. */
+        CLIPPED
+    }
+
+    /**
+     * The outcome of {@link #tryRender()}.
+     */
+    public enum RenderResult {
+        /** The frame was rendered. */
+        RENDERED,
+        /** Skipped because another frame, context operation or disposal was still in progress or queued. */
+        BUSY,
+        /** Skipped because the canvas was being disposed or removed from its parent. */
+        DISPOSING,
+        /** Skipped because the canvas has no native peer to render to. */
+        NO_PEER
+    }
+
     protected PlatformGLCanvas platformCanvas = createPlatformCanvas();
 
     private static PlatformGLCanvas createPlatformCanvas() {
@@ -49,28 +93,142 @@ public abstract class AWTGLCanvas extends Canvas {
     private final ReentrantLock lifecycleLock = new ReentrantLock();
     /** Whether context teardown is in progress while {@link #lifecycleLock} is held. */
     private boolean disposing;
+    /** Whether the component was detached from its native peer while the lifecycle lock was released. */
+    private boolean detaching;
+    /** Whether {@link #context} outlives a destroyed native peer and waits to be reattached. */
+    private boolean parked;
+    /** Identifies the current parking so that an outdated timeout does not delete a reattached context. */
+    private long parkGeneration;
+    private volatile long parkingTimeoutNanos;
+    private volatile long deferredDisposalTimeoutNanos;
+    /** The deferred disposal of the parked context, until the context has been deleted. */
+    private CompletableFuture<Void> pendingDisposal;
+    private volatile CompletableFuture<Void> lastDisposal = CompletableFuture.completedFuture(null);
+    private final Object preparationLock = new Object();
+    /** Preparation requested by {@link #prepareAsync(boolean)} before the canvas had a native peer. */
+    private CompletableFuture<Void> pendingPreparation;
+    private boolean pendingPreparationInitializes;
+    private final Object renderThreadLock = new Object();
+    private volatile RenderThread renderThread;
+    /** Whether {@link #renderThread} was started by this canvas rather than a {@link RenderCoordinator}. */
+    private boolean ownsRenderThread;
+    /** Whether a retained context binding must be refreshed because the drawable may have changed. */
+    private volatile boolean rebindRequired;
+    /** Whether a frame requested through {@link #requestRender()} is queued but has not started yet. */
+    private final AtomicBoolean renderPending = new AtomicBoolean();
+    /** Whether a frame was requested while the canvas was not visible and must be rendered once it is. */
+    private final AtomicBoolean renderSuppressed = new AtomicBoolean();
+    /** Tasks passed to {@link #submit(Callable)} that have not run yet. */
+    private final ConcurrentLinkedQueue<SubmittedTask<?>> submittedTasks = new ConcurrentLinkedQueue<>();
+    /** Whether the render thread has been asked to run the submitted tasks outside of a frame. */
+    private final AtomicBoolean submittedTasksPending = new AtomicBoolean();
+    private final Object visibilityLock = new Object();
+    /** The window whose iconification state is observed; only accessed on the event-dispatch thread. */
+    private Window observedWindow;
+    private final WindowAdapter windowListener = new WindowAdapter() {
+        @Override
+        public void windowIconified(WindowEvent e) {
+            visibilityChanged();
+        }
+
+        @Override
+        public void windowDeiconified(WindowEvent e) {
+            visibilityChanged();
+        }
+
+        @Override
+        public void windowStateChanged(WindowEvent e) {
+            visibilityChanged();
+        }
+    };
+    private final AtomicLong requestedFrames = new AtomicLong();
+    private final AtomicLong renderedFrames = new AtomicLong();
+    private final AtomicLong skippedFrames = new AtomicLong();
+    private final AtomicLong paintedFrames = new AtomicLong();
+    private final Callable<RenderResult> tryRenderFrameOnRenderThread = () -> tryRenderFrame(0L);
+    private volatile long lastRequestedFrameNanos;
+    /** Duration of one display refresh, or {@code 0} when it must be queried again. */
+    private volatile long refreshPeriodNanos;
+    private final FramePacer framePacer = new FramePacer();
+    private final FrameFences frameFences = new FrameFences();
+    private volatile int maxFramesInFlight;
+    private volatile boolean narrowSurfaceLock;
+    private volatile boolean renderOffEventDispatchThread;
+    private volatile boolean manageCapabilities;
+    /** The managed capabilities of the current context, guarded by the lifecycle lock. */
+    private volatile GLCapabilities capabilities;
+    /** Whether the binding thread installed {@link #capabilities}, guarded by the lifecycle lock. */
+    private boolean capabilitiesInstalled;
+    /** What the binding thread had installed before {@link #capabilities}, guarded by the lifecycle lock. */
+    private GLCapabilities previousCapabilities;
+    /** The thread that {@link #previousCapabilities} were read from, guarded by the lifecycle lock. */
+    private Thread previousCapabilitiesThread;
+    /** Only written by the event-dispatch thread. */
+    private volatile long lastEventDispatchThreadStallNanos;
+    private volatile long totalEventDispatchThreadStallNanos;
+    /** Whether the current frame unlocked the drawing surface after binding, guarded by the lifecycle lock. */
+    private boolean surfaceUnlockedForFrame;
     private volatile int framebufferWidth;
     private volatile int framebufferHeight;
+    /** Receives the platform framebuffer size on every frame, guarded by the lifecycle lock. */
+    private final int[] platformFramebufferSize = new int[2];
+    /** Receives the component size in the event listeners, only used by the event-dispatch thread. */
+    private final int[] componentFramebufferSize = new int[2];
     private final ComponentListener listener = new ComponentAdapter() {
         @Override
         public void componentResized(ComponentEvent e) {
-            updateFramebufferSizeFromComponent();
+            rebindRequired = true;
+            platformCanvas.invalidateFramebufferSize();
+            updateFramebufferSizeFromComponent(componentFramebufferSize);
+            visibilityChanged();
         }
 
         @Override
         public void componentMoved(ComponentEvent e) {
-            updateFramebufferSizeFromComponent();
+            rebindRequired = true;
+            updateFramebufferSizeFromComponent(componentFramebufferSize);
+            visibilityChanged();
+        }
+
+        @Override
+        public void componentShown(ComponentEvent e) {
+            visibilityChanged();
+        }
+
+        @Override
+        public void componentHidden(ComponentEvent e) {
+            visibilityChanged();
         }
     };
 
+    @Override
+    public void addNotify() {
+        super.addNotify();
+        CompletableFuture<Void> preparation;
+        boolean initialize;
+        synchronized (preparationLock) {
+            preparation = pendingPreparation;
+            initialize = pendingPreparationInitializes;
+            pendingPreparation = null;
+        }
+        if (preparation != null) {
+            startPreparation(preparation, initialize);
+        }
+    }
+
     @Override
     public void removeNotify() {
+        RenderThread thread = renderThread;
+        if (thread != null && !thread.isCurrentThread()) {
+            removeNotifyOnRenderThread(thread);
+            return;
+        }
         lifecycleLock.lock();
         try {
             Throwable failure = null;
             try {
                 // The context-current cleanup hook needs the native peer to still exist.
-                disposeCanvas();
+                parkOrDisposeCanvas();
             } catch (RuntimeException | Error e) {
                 failure = e;
             }
@@ -87,6 +245,348 @@ public abstract class AWTGLCanvas extends Canvas {
         }
     }
 
+    /**
+     * Disposes the context on the render thread, which may still have it current, before destroying the peer.
+     *
+     * <p>The calling thread must not hold the lifecycle lock while it waits, because the render thread may be blocked
+     * on that lock in the middle of a frame. Frames started after the context was disposed fail until the peer is
+     * gone instead of recreating a context for the dying peer.</p>
+     */
+    private void removeNotifyOnRenderThread(RenderThread thread) {
+        Throwable failure = null;
+        try {
+            thread.run(() -> {
+                lifecycleLock.lock();
+                try {
+                    detaching = true;
+                    parkOrDisposeCanvas();
+                } finally {
+                    lifecycleLock.unlock();
+                }
+            });
+        } catch (RuntimeException | Error e) {
+            failure = e;
+        }
+        try {
+            super.removeNotify();
+        } catch (RuntimeException | Error e) {
+            failure = appendFailure(failure, e);
+        } finally {
+            lifecycleLock.lock();
+            try {
+                detaching = false;
+            } finally {
+                lifecycleLock.unlock();
+            }
+        }
+        if (failure != null) {
+            rethrow(failure);
+        }
+    }
+
+    private void parkOrDisposeCanvas() {
+        lifecycleLock.lock();
+        try {
+            if (parkingTimeoutNanos > 0L && context != 0L && !disposing && parkContext()) {
+                return;
+            }
+            if (deferredDisposalTimeoutNanos > 0L && context != 0L && !disposing && deferDisposal()) {
+                return;
+            }
+            disposeCanvas();
+        } finally {
+            lifecycleLock.unlock();
+        }
+    }
+
+    private boolean parkContext() {
+        releaseRetainedContext();
+        if (!platformCanvas.park(context)) {
+            return false;
+        }
+        parked = true;
+        long generation = ++parkGeneration;
+        ParkedContextReaper.THREAD.schedule(() -> expireParkedContext(generation), parkingTimeoutNanos);
+        return true;
+    }
+
+    /**
+     * Parks the context like {@link #parkContext()} and schedules its deletion on the render thread, or on the reaper
+     * thread if there is none.
+     */
+    private boolean deferDisposal() {
+        if (pendingDisposal != null) {
+            // Already parked for disposal by an earlier removal; the canvas was not rendered in between.
+            return true;
+        }
+        releaseRetainedContext();
+        if (!platformCanvas.park(context)) {
+            return false;
+        }
+        parked = true;
+        // Cancels the expiry of an earlier parking.
+        parkGeneration++;
+        long timeoutNanos = deferredDisposalTimeoutNanos;
+        CompletableFuture<Void> disposal = new CompletableFuture<>();
+        pendingDisposal = disposal;
+        lastDisposal = disposal;
+        RenderThread thread = renderThread;
+        if (thread == null || !thread.schedule(() -> disposeDeferred(disposal), 0L)) {
+            ParkedContextReaper.THREAD.schedule(() -> disposeDeferred(disposal), 0L);
+        }
+        Future<?> timeout = DisposalWatchdog.THREAD.scheduleCancellable(() -> disposal.completeExceptionally(
+                new TimeoutException("The OpenGL context was not deleted within "
+                        + TimeUnit.NANOSECONDS.toMillis(timeoutNanos) + " ms")),
+                timeoutNanos);
+        if (timeout != null) {
+            // A pending timeout would keep the canvas reachable until it expires.
+            disposal.whenComplete((ignored, failure) -> DisposalWatchdog.THREAD.cancel(timeout));
+        }
+        return true;
+    }
+
+    private void disposeDeferred(CompletableFuture<Void> disposal) {
+        RenderThread thread = renderThread;
+        if (thread != null && !thread.isCurrentThread()) {
+            thread.run(() -> disposeDeferred(disposal));
+            return;
+        }
+        lifecycleLock.lock();
+        try {
+            if (pendingDisposal == disposal) {
+                disposeCanvas();
+            }
+        } catch (RuntimeException | Error e) {
+            // Reported through the disposal future, if disposeCanvas() has not done so already.
+            disposal.completeExceptionally(e);
+        } finally {
+            lifecycleLock.unlock();
+        }
+    }
+
+    private void expireParkedContext(long generation) {
+        RenderThread thread = renderThread;
+        if (thread != null && !thread.isCurrentThread()) {
+            thread.run(() -> expireParkedContext(generation));
+            return;
+        }
+        lifecycleLock.lock();
+        try {
+            if (parked && parkGeneration == generation) {
+                disposeCanvas();
+            }
+        } catch (RuntimeException | Error e) {
+            Thread current = Thread.currentThread();
+            current.getUncaughtExceptionHandler().uncaughtException(current, e);
+        } finally {
+            lifecycleLock.unlock();
+        }
+    }
+
+    private void reattachParkedContext() {
+        boolean reattached;
+        try {
+            reattached = platformCanvas.reattach(context);
+        } catch (AWTException e) {
+            throw new RuntimeException("Exception while reattaching the OpenGL context", e);
+        }
+        if (reattached) {
+            parked = false;
+            rebindRequired = true;
+        } else {
+            // The new peer is incompatible; a new context is created for it.
+            disposeCanvas();
+        }
+    }
+
+    /**
+     * Keeps the OpenGL context alive for up to {@code timeout} after the canvas's native peer is destroyed, for example
+     * when the canvas is moved to another container, tab or window. A timeout of {@code 0}, the default, disposes the
+     * context together with the peer.
+     *
+     * <p>While parked, the context and its share group stay alive without a drawable. When the canvas is rendered
+     * again on a new peer with a compatible window visual, the context is bound to it and {@link #initGL()} is not
+     * called again. An incompatible peer, an explicit {@link #disposeCanvas()} or the timeout deletes the parked
+     * context. {@link #disposeGL()} is called before, with the context current without a drawable: on GLX for OpenGL
+     * 3.0 and later contexts, and on EGL through EGL_KHR_surfaceless_context or a 1x1 pbuffer. Where that is not
+     * possible, {@link #disposeGL()} is skipped; deleting the last context of a share group still releases its
+     * objects.</p>
+     *
+     * <p>Parking is supported for GLX and EGL contexts on Linux. On other platforms the context is always disposed
+     * with its peer.</p>
+     *
+     * @throws IllegalArgumentException if {@code timeout} is negative
+     */
+    public void setContextParkingTimeout(long timeout, TimeUnit unit) {
+        if (timeout < 0L) {
+            throw new IllegalArgumentException("timeout must not be negative");
+        }
+        parkingTimeoutNanos = unit.toNanos(timeout);
+    }
+
+    /**
+     * Returns whether the context currently outlives a destroyed native peer, see
+     * {@link #setContextParkingTimeout(long, TimeUnit)}.
+     */
+    public boolean isContextParked() {
+        lifecycleLock.lock();
+        try {
+            return parked && pendingDisposal == null;
+        } finally {
+            lifecycleLock.unlock();
+        }
+    }
+
+    private static final class ParkedContextReaper {
+        static final RenderThread THREAD = new RenderThread("AWTGLCanvas parked context reaper");
+    }
+
+    /**
+     * Times out deferred disposals. Separate from the reaper, which may be blocked by a canvas it disposes.
+     */
+    static final class DisposalWatchdog {
+        static final RenderThread THREAD = new RenderThread("AWTGLCanvas disposal watchdog");
+    }
+
+    /**
+     * Moves the deletion of the OpenGL context off the thread that removes the canvas from its parent, which is
+     * normally the event-dispatch thread holding AWT's tree lock. A timeout of {@code 0}, the default, disposes the
+     * context together with the peer.
+     *
+     * <p>When the native peer is destroyed, the context is only detached from its drawable like a
+     * {@linkplain #setContextParkingTimeout(long, TimeUnit) parked} context. This waits for a frame in progress, because
+     * the peer must outlive it, but does no OpenGL work. The context is then deleted on the
+     * {@linkplain #startRenderThread() render thread}, or on a background thread if the canvas has none.
+     * {@link #disposeGL()} is called before, with the context current without a drawable where the platform supports
+     * it, as for a parked context; otherwise it is skipped, and deleting the last context of a share group still
+     * releases its objects. Rendering the canvas on a new peer before the context was
+     * deleted deletes it first and creates a new one.</p>
+     *
+     * <p>{@link #getDisposalFuture()} reports the outcome. If the context has not been deleted within {@code timeout},
+     * for example because the render thread is busy, the future fails with a {@link TimeoutException}; the context is
+     * still deleted as soon as possible.</p>
+     *
+     * <p>Like parking, this is supported for GLX and EGL contexts on Linux, and parking takes precedence if both are
+     * enabled. On other platforms the context is always disposed with its peer.</p>
+     *
+     * @throws IllegalArgumentException if {@code timeout} is negative
+     */
+    public void setDeferredDisposalTimeout(long timeout, TimeUnit unit) {
+        if (timeout < 0L) {
+            throw new IllegalArgumentException("timeout must not be negative");
+        }
+        deferredDisposalTimeoutNanos = unit.toNanos(timeout);
+    }
+
+    /**
+     * Returns a future of the most recent {@linkplain #setDeferredDisposalTimeout(long, TimeUnit) deferred disposal},
+     * which completes once the context has been deleted. The future is already completed if there was none.
+     */
+    public CompletableFuture<Void> getDisposalFuture() {
+        return lastDisposal;
+    }
+
+    /**
+     * Creates the OpenGL context now instead of on the first {@link #render()}, and invokes {@link #initGL()} if
+     * {@code initialize} is {@code true} and it has not been called yet. Choosing a pixel format, probing context
+     * versions and querying the effective {@link GLData} can take long enough to delay the first frame noticeably when
+     * they happen during the first paint.
+     *
+     * <p>This may be called from any thread once the canvas is {@linkplain #isDisplayable() displayable}. While a
+     * {@linkplain #startRenderThread() render thread} is running, the work is done on that thread and this method waits
+     * for it to complete. Otherwise the context is not left current on the calling thread, and {@link #initGL()} runs
+     * on the calling thread, so thread-local state such as {@code GLCapabilities} that it installs is not available to
+     * other threads. Calling this method for an already created context has no effect apart from invoking
+     * {@link #initGL()} if requested.</p>
+     *
+     * @throws IllegalStateException if the canvas has no native peer
+     */
+    public void prepare(boolean initialize) {
+        RenderThread thread = renderThread;
+        if (thread != null && !thread.isCurrentThread()) {
+            thread.run(() -> prepare(initialize));
+            return;
+        }
+        if (!isDisplayable()) {
+            throw new IllegalStateException("Canvas is not displayable");
+        }
+        lifecycleLock.lock();
+        try {
+            if (!initialize) {
+                ensureContext();
+                return;
+            }
+            beforeRender();
+            Throwable callbackFailure = null;
+            try {
+                if (!initCalled) {
+                    initGL();
+                    initCalled = true;
+                }
+            } catch (RuntimeException | Error failure) {
+                callbackFailure = failure;
+                throw failure;
+            } finally {
+                afterRender(callbackFailure);
+            }
+        } finally {
+            lifecycleLock.unlock();
+        }
+    }
+
+    /**
+     * Performs {@link #prepare(boolean)} in the background and returns a future that completes when the context is
+     * ready, or exceptionally with the failure of the preparation.
+     *
+     * <p>The work is done on the {@linkplain #startRenderThread() render thread} if one is running and on a shared
+     * background thread otherwise. {@link #initGL()} normally installs thread-local {@code GLCapabilities}, which would
+     * then be left on the background thread. In that case only the context is created, and {@link #initGL()} is called
+     * by the first frame, unless the canvas {@linkplain #setManageCapabilities(boolean) manages} its capabilities.
+     * If the canvas does not have a native peer yet, the preparation starts as soon as
+     * {@link #addNotify()} creates one, so this can be called right after constructing the canvas. Requests made before
+     * that are merged into a single preparation that invokes {@link #initGL()} if any of them asked for it.</p>
+     */
+    public CompletableFuture<Void> prepareAsync(boolean initialize) {
+        CompletableFuture<Void> preparation;
+        synchronized (preparationLock) {
+            if (!isDisplayable()) {
+                if (pendingPreparation == null) {
+                    pendingPreparation = new CompletableFuture<>();
+                }
+                pendingPreparationInitializes |= initialize;
+                return pendingPreparation;
+            }
+            preparation = new CompletableFuture<>();
+        }
+        startPreparation(preparation, initialize);
+        return preparation;
+    }
+
+    private void startPreparation(CompletableFuture<Void> preparation, boolean initialize) {
+        Runnable task = () -> {
+            try {
+                prepare(initialize);
+                preparation.complete(null);
+            } catch (RuntimeException | Error e) {
+                preparation.completeExceptionally(e);
+            }
+        };
+        RenderThread thread = renderThread;
+        if (thread != null && thread.schedule(task, 0L)) {
+            return;
+        }
+        if (initialize && !manageCapabilities) {
+            // initGL() is left to the thread that renders the first frame.
+            startPreparation(preparation, false);
+            return;
+        }
+        ContextPreparer.THREAD.schedule(task, 0L);
+    }
+
+    private static final class ContextPreparer {
+        static final RenderThread THREAD = new RenderThread("AWTGLCanvas context preparer");
+    }
+
     @Override
     public synchronized void addComponentListener(ComponentListener l) {
         super.addComponentListener(l);
@@ -101,8 +601,16 @@ public abstract class AWTGLCanvas extends Canvas {
      * callback runs on the thread that calls this method, which may differ from the rendering thread. If the callback
      * fails, context deletion and platform cleanup are still attempted before the failure is rethrown. A reentrant call
      * from {@link #disposeGL()} returns without doing anything.</p>
+     *
+     * <p>While a {@linkplain #startRenderThread() render thread} is running, the disposal is performed on that thread
+     * and this method waits for it to finish.</p>
      */
     public void disposeCanvas() {
+        RenderThread thread = renderThread;
+        if (thread != null && !thread.isCurrentThread()) {
+            thread.run(this::disposeCanvas);
+            return;
+        }
         lifecycleLock.lock();
         try {
             if (disposing) {
@@ -114,7 +622,12 @@ public abstract class AWTGLCanvas extends Canvas {
                 long contextToDelete = context;
                 if (contextToDelete != 0L) {
                     try {
-                        disposeGLInContext(contextToDelete);
+                        if (parked) {
+                            parked = false;
+                            disposeGLWithoutDrawable(contextToDelete);
+                        } else {
+                            disposeGLInContext(contextToDelete);
+                        }
                     } catch (RuntimeException | Error e) {
                         failure = e;
                     }
@@ -126,12 +639,24 @@ public abstract class AWTGLCanvas extends Canvas {
                 }
                 // prepare for a possible re-adding
                 context = 0L;
+                capabilities = null;
                 initCalled = false;
+                frameFences.reset();
+                failSubmittedTasks();
                 try {
                     platformCanvas.dispose();
                 } catch (RuntimeException | Error e) {
                     failure = appendFailure(failure, e);
                 }
+                CompletableFuture<Void> disposal = pendingDisposal;
+                if (disposal != null) {
+                    pendingDisposal = null;
+                    if (failure == null) {
+                        disposal.complete(null);
+                    } else {
+                        disposal.completeExceptionally(failure);
+                    }
+                }
                 if (failure != null) {
                     rethrow(failure);
                 }
@@ -148,6 +673,7 @@ public abstract class AWTGLCanvas extends Canvas {
         Throwable callbackFailure = null;
         try {
             disposeGL();
+            frameFences.deleteAll();
         } catch (RuntimeException | Error failure) {
             callbackFailure = failure;
             throw failure;
@@ -156,20 +682,424 @@ public abstract class AWTGLCanvas extends Canvas {
         }
     }
 
+    /**
+     * Runs the cleanup hook for a parked context, whose native peer is gone, if the platform can make the context current
+     * without a drawable.
+     */
+    private void disposeGLWithoutDrawable(long contextToDelete) {
+        if (!platformCanvas.makeCurrentWithoutDrawable(contextToDelete)) {
+            // Deleting the last context of a share group still releases its objects.
+            return;
+        }
+        Throwable callbackFailure = null;
+        try {
+            if (manageCapabilities) {
+                installCapabilities();
+            }
+            disposeGL();
+            frameFences.deleteAll();
+        } catch (RuntimeException | Error failure) {
+            callbackFailure = failure;
+            throw failure;
+        } finally {
+            try {
+                uninstallCapabilities();
+                if (!platformCanvas.makeCurrentWithoutDrawable(0L)) {
+                    throw new IllegalStateException("Failed to clear the current OpenGL context");
+                }
+            } catch (RuntimeException | Error cleanupFailure) {
+                handleCleanupFailure(callbackFailure, cleanupFailure);
+            }
+        }
+    }
+
     protected AWTGLCanvas(GLData data) {
         this.data = data;
         this.addComponentListener(listener);
-        this.addPropertyChangeListener("graphicsConfiguration", e -> updateFramebufferSizeFromComponent());
+        this.addPropertyChangeListener("graphicsConfiguration", e -> {
+            rebindRequired = true;
+            refreshPeriodNanos = 0L;
+            platformCanvas.invalidateFramebufferSize();
+            updateFramebufferSizeFromComponent(componentFramebufferSize);
+        });
+        this.addHierarchyListener(e -> {
+            if ((e.getChangeFlags() & (HierarchyEvent.PARENT_CHANGED | HierarchyEvent.DISPLAYABILITY_CHANGED)) != 0) {
+                observeWindow();
+            }
+            visibilityChanged();
+        });
+        this.addHierarchyBoundsListener(new HierarchyBoundsAdapter() {
+            @Override
+            public void ancestorMoved(HierarchyEvent e) {
+                visibilityChanged();
+            }
+
+            @Override
+            public void ancestorResized(HierarchyEvent e) {
+                visibilityChanged();
+            }
+        });
     }
 
     protected AWTGLCanvas() {
         this(new GLData());
     }
 
+    /**
+     * Starts a dedicated render thread that owns this canvas's OpenGL context.
+     *
+     * <p>While the render thread is running, {@link #render()}, {@link #runInContext(Runnable)},
+     * {@link #executeInContext(Callable)} and {@link #disposeCanvas()} execute on it, and calls from other threads wait
+     * for them to complete. {@linkplain #submit(Callable) Submitted tasks} run on it as well. The context stays current on the render thread between frames; it is only bound again when
+     * the component was resized, moved or moved to another screen, or when the platform reports that the context is no
+     * longer current on the canvas's drawable. The drawing surface is still locked for the duration of every frame.</p>
+     *
+     * <p>Has no effect if a render thread is already running, including one shared through a
+     * {@link RenderCoordinator}. Call {@link #stopRenderThread()} once the canvas is no longer needed; removing the
+     * canvas from its parent disposes the context but keeps the render thread.</p>
+     */
+    public void startRenderThread() {
+        synchronized (renderThreadLock) {
+            if (renderThread == null) {
+                renderThread = new RenderThread("AWTGLCanvas render thread [" + getName() + "]");
+                ownsRenderThread = true;
+            }
+        }
+    }
+
+    /**
+     * Releases the context held by the render thread and stops it, waiting for already submitted work to finish.
+     *
+     * <p>Afterwards, rendering happens on the calling thread again. Has no effect if no render thread is running.</p>
+     *
+     * @throws IllegalStateException if the canvas is rendered by a {@link RenderCoordinator}
+     */
+    public void stopRenderThread() {
+        RenderThread thread;
+        synchronized (renderThreadLock) {
+            thread = renderThread;
+            if (thread == null) {
+                return;
+            }
+            if (!ownsRenderThread) {
+                throw new IllegalStateException("Canvas is rendered by a RenderCoordinator");
+            }
+        }
+        Throwable failure = null;
+        try {
+            detachRenderThread(thread);
+        } catch (RuntimeException | Error e) {
+            failure = e;
+        }
+        try {
+            thread.shutdown();
+        } catch (RuntimeException | Error e) {
+            failure = appendFailure(failure, e);
+        }
+        // Shutting down discards a requested frame that had not started yet.
+        renderPending.set(false);
+        if (failure != null) {
+            rethrow(failure);
+        }
+    }
+
+    /**
+     * Makes {@code thread}, which is owned by a {@link RenderCoordinator}, this canvas's render thread.
+     */
+    void attachRenderThread(RenderThread thread) {
+        synchronized (renderThreadLock) {
+            if (renderThread != null) {
+                throw new IllegalStateException("Canvas already has a render thread");
+            }
+            renderThread = thread;
+            ownsRenderThread = false;
+        }
+    }
+
+    /**
+     * Releases the context that {@code thread} keeps current and makes the canvas render on its callers' threads
+     * again. Has no effect if {@code thread} is no longer this canvas's render thread.
+     */
+    void detachRenderThread(RenderThread thread) {
+        thread.run(() -> {
+            lifecycleLock.lock();
+            try {
+                synchronized (renderThreadLock) {
+                    if (renderThread != thread) {
+                        return;
+                    }
+                    renderThread = null;
+                }
+                releaseRetainedContext();
+            } finally {
+                lifecycleLock.unlock();
+            }
+        });
+    }
+
+    /**
+     * Returns whether the calling thread is this canvas's {@linkplain #startRenderThread() render thread}.
+     */
+    public boolean isRenderThread() {
+        RenderThread thread = renderThread;
+        return thread != null && thread.isCurrentThread();
+    }
+
+    /**
+     * Requests that this canvas be rendered on its {@linkplain #startRenderThread() render thread}, starting the
+     * thread if necessary, and returns immediately.
+     *
+     * <p>Any number of requests made before the requested frame starts are merged into that frame, and frames are
+     * started at most once per refresh period of the canvas's screen. A request made while a frame is rendering
+     * schedules one more frame, so the last change is always drawn. Failures are reported to the render thread's
+     * uncaught exception handler.</p>
+     *
+     * <p>Nothing is rendered while the canvas is not {@linkplain Visibility#VISIBLE visible}. Instead, a single frame
+     * is requested as soon as the canvas becomes visible again.</p>
+     *
+     * <p>This method can be called from any thread, including from an overridden {@link #repaint()}.</p>
+     */
+    public void requestRender() {
+        requestedFrames.incrementAndGet();
+        scheduleRender();
+    }
+
+    private void scheduleRender() {
+        if (getVisibility() != Visibility.VISIBLE) {
+            renderSuppressed.set(true);
+            return;
+        }
+        if (!renderPending.compareAndSet(false, true)) {
+            return;
+        }
+        startRenderThread();
+        RenderThread thread = renderThread;
+        long delay = lastRequestedFrameNanos + refreshPeriodNanos() - System.nanoTime();
+        if (thread == null || !thread.schedule(this::renderRequestedFrame, Math.max(0L, delay))) {
+            // The render thread was stopped concurrently; the next request starts a new one.
+            renderPending.set(false);
+        }
+    }
+
+    private void renderRequestedFrame() {
+        lastRequestedFrameNanos = System.nanoTime();
+        // Clear before rendering so that requests made during this frame schedule the next one.
+        renderPending.set(false);
+        if (getVisibility() != Visibility.VISIBLE) {
+            renderSuppressed.set(true);
+            return;
+        }
+        try {
+            render();
+            renderedFrames.incrementAndGet();
+        } catch (RuntimeException | Error e) {
+            Thread thread = Thread.currentThread();
+            thread.getUncaughtExceptionHandler().uncaughtException(thread, e);
+        }
+    }
+
+    /**
+     * Returns whether this canvas can currently be seen.
+     *
+     * <p>The state is derived from AWT's component hierarchy: the canvas and its ancestors must be showing, the frame
+     * must not be iconified, the canvas must have a non-empty size, and it must not lie entirely outside the bounds of
+     * any ancestor. Occlusion by other windows is not detected. {@link #requestRender()} and
+     * {@link RenderCoordinator} skip canvases that are not {@link Visibility#VISIBLE}; render loops can block in
+     * {@link #awaitVisible(long, TimeUnit)}.</p>
+     */
+    public Visibility getVisibility() {
+        if (!isShowing()) {
+            return Visibility.HIDDEN;
+        }
+        int width = getWidth();
+        int height = getHeight();
+        Component component = this;
+        int x0 = 0;
+        int y0 = 0;
+        int x1 = width;
+        int y1 = height;
+        boolean clipped = false;
+        while (!(component instanceof Window)) {
+            Container parent = component.getParent();
+            if (parent == null) {
+                break;
+            }
+            x0 += component.getX();
+            y0 += component.getY();
+            x1 += component.getX();
+            y1 += component.getY();
+            x0 = Math.max(x0, 0);
+            y0 = Math.max(y0, 0);
+            x1 = Math.min(x1, parent.getWidth());
+            y1 = Math.min(y1, parent.getHeight());
+            if (x0 >= x1 || y0 >= y1) {
+                clipped = true;
+            }
+            component = parent;
+        }
+        if (component instanceof Frame && (((Frame) component).getExtendedState() & Frame.ICONIFIED) != 0) {
+            return Visibility.ICONIFIED;
+        }
+        if (width <= 0 || height <= 0) {
+            return Visibility.ZERO_SIZE;
+        }
+        return clipped ? Visibility.CLIPPED : Visibility.VISIBLE;
+    }
+
+    /**
+     * Waits until this canvas is {@linkplain Visibility#VISIBLE visible} or the timeout elapses, so that a render loop
+     * consumes no CPU or GPU time while its canvas cannot be seen.
+     *
+     * @return {@code true} if the canvas is visible
+     * @throws InterruptedException if the calling thread is interrupted while waiting
+     */
+    public boolean awaitVisible(long timeout, TimeUnit unit) throws InterruptedException {
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        synchronized (visibilityLock) {
+            while (getVisibility() != Visibility.VISIBLE) {
+                long remaining = deadline - System.nanoTime();
+                if (remaining <= 0L) {
+                    return false;
+                }
+                TimeUnit.NANOSECONDS.timedWait(visibilityLock, remaining);
+            }
+            return true;
+        }
+    }
+
+    private void observeWindow() {
+        Component component = this;
+        while (component != null && !(component instanceof Window)) {
+            component = component.getParent();
+        }
+        Window window = (Window) component;
+        if (window == observedWindow) {
+            return;
+        }
+        if (observedWindow != null) {
+            observedWindow.removeWindowListener(windowListener);
+            observedWindow.removeWindowStateListener(windowListener);
+        }
+        observedWindow = window;
+        if (window != null) {
+            window.addWindowListener(windowListener);
+            window.addWindowStateListener(windowListener);
+        }
+    }
+
+    private void visibilityChanged() {
+        synchronized (visibilityLock) {
+            visibilityLock.notifyAll();
+        }
+        if (renderSuppressed.get() && getVisibility() == Visibility.VISIBLE && renderSuppressed.getAndSet(false)) {
+            scheduleRender();
+        }
+    }
+
+    private long refreshPeriodNanos() {
+        long period = refreshPeriodNanos;
+        if (period == 0L) {
+            int refreshRate = DisplayMode.REFRESH_RATE_UNKNOWN;
+            GraphicsConfiguration gc = getGraphicsConfiguration();
+            if (gc != null) {
+                refreshRate = gc.getDevice().getDisplayMode().getRefreshRate();
+            }
+            if (refreshRate <= 0) {
+                refreshRate = 60;
+            }
+            refreshPeriodNanos = period = TimeUnit.SECONDS.toNanos(1L) / refreshRate;
+        }
+        return period;
+    }
+
+    /**
+     * Returns the number of {@link #requestRender()} calls made so far.
+     */
+    public long getRequestedFrameCount() {
+        return requestedFrames.get();
+    }
+
+    /**
+     * Returns the number of frames successfully rendered in response to {@link #requestRender()}.
+     *
+     * @see #getPaintedFrameCount()
+     */
+    public long getRenderedFrameCount() {
+        return renderedFrames.get();
+    }
+
+    /**
+     * Returns the number of frames whose {@link #paintGL()} completed, however the frame was rendered.
+     */
+    public long getPaintedFrameCount() {
+        return paintedFrames.get();
+    }
+
+    /**
+     * Returns how many context versions were tried to create the current context, or {@code 0} if there is no context
+     * or the platform does not report it. With {@link GLData.VersionPolicy#AT_LEAST} and
+     * {@link GLData.VersionPolicy#HIGHEST} the Linux backends search the candidate versions with a binary search and try
+     * the version that succeeded for earlier canvases first.
+     */
+    public int getContextVersionAttempts() {
+        return context != 0L ? platformCanvas.getContextVersionAttempts() : 0;
+    }
+
+    private void releaseRetainedContext() {
+        if (context == 0L || !platformCanvas.isCurrent(context)) {
+            return;
+        }
+        try {
+            platformCanvas.lock();
+        } catch (AWTException e) {
+            throw new RuntimeException("Failed to lock Canvas", e);
+        }
+        clearCurrentAndUnlock();
+    }
+
     protected void beforeRender() {
-        if (disposing) {
+        ensureContext();
+        lockAndMakeCurrent(context, true, isRenderThread());
+        if (narrowSurfaceLock && platformCanvas.supportsUnlockedRendering()) {
+            // The frame's commands are issued without the drawing surface, and thereby AWT's toolkit lock, held.
+            unlock();
+            surfaceUnlockedForFrame = true;
+        }
+        int maxFramesInFlight = this.maxFramesInFlight;
+        if (maxFramesInFlight > 0) {
+            try {
+                frameFences.await(maxFramesInFlight);
+            } catch (RuntimeException | Error failure) {
+                if (surfaceUnlockedForFrame) {
+                    surfaceUnlockedForFrame = false;
+                    relockAfterFailure(failure);
+                }
+                releaseDrawingSurfaceAfterFailure(failure);
+                throw failure;
+            }
+        }
+    }
+
+    private void relockAfterFailure(Throwable failure) {
+        try {
+            platformCanvas.lock();
+        } catch (AWTException | RuntimeException e) {
+            failure.addSuppressed(e);
+        }
+    }
+
+    private void ensureContext() {
+        if (disposing || detaching) {
             throw new IllegalStateException("Canvas is being disposed");
         }
+        if (parked) {
+            if (pendingDisposal != null) {
+                // A context detached for deletion is not reused on the new peer.
+                disposeCanvas();
+            } else {
+                reattachParkedContext();
+            }
+        }
         if (context == 0L) {
             try {
                 context = platformCanvas.create(this, data, effective);
@@ -177,35 +1107,114 @@ public abstract class AWTGLCanvas extends Canvas {
                 throw new RuntimeException("Exception while creating the OpenGL context", e);
             }
         }
-        lockAndMakeCurrent(context, true);
     }
 
     private void lockAndMakeCurrent(long contextToMakeCurrent, boolean updateFramebuffer) {
+        lockAndMakeCurrent(contextToMakeCurrent, updateFramebuffer, false);
+    }
+
+    private void lockAndMakeCurrent(long contextToMakeCurrent, boolean updateFramebuffer, boolean reuseBinding) {
         try {
             platformCanvas.lock(); // <- MUST lock on Linux
         } catch (AWTException e) {
             throw new RuntimeException("Failed to lock Canvas", e);
         }
         try {
-            if (!platformCanvas.makeCurrent(contextToMakeCurrent)) {
-                throw new IllegalStateException("Failed to make the OpenGL context current");
+            if (!reuseBinding || rebindRequired || !platformCanvas.isCurrentOnDrawable(contextToMakeCurrent)) {
+                rebindRequired = false;
+                if (!platformCanvas.makeCurrent(contextToMakeCurrent)) {
+                    throw new IllegalStateException("Failed to make the OpenGL context current");
+                }
             }
             if (updateFramebuffer) {
                 updateFramebufferSize();
             }
+            if (manageCapabilities) {
+                installCapabilities();
+            }
         } catch (RuntimeException | Error failure) {
             releaseDrawingSurfaceAfterFailure(failure);
             throw failure;
         }
     }
 
+    private void installCapabilities() {
+        if (effective.api == GLData.API.GLES) {
+            throw new IllegalStateException("Capabilities of OpenGL ES contexts cannot be managed");
+        }
+        Thread thread = Thread.currentThread();
+        if (!capabilitiesInstalled && previousCapabilitiesThread != thread) {
+            // Read once per binding thread. Until another thread binds the context, the thread has what was restored on
+            // the last release.
+            previousCapabilities = currentCapabilities();
+            previousCapabilitiesThread = thread;
+        }
+        GLCapabilities capabilities = this.capabilities;
+        if (capabilities == null) {
+            capabilities = CapabilitiesCache.forCurrentContext();
+            this.capabilities = capabilities;
+        }
+        GL.setCapabilities(capabilities);
+        capabilitiesInstalled = true;
+    }
+
+    private static GLCapabilities currentCapabilities() {
+        try {
+            return GL.getCapabilities();
+        } catch (IllegalStateException e) {
+            // The thread has no capabilities.
+            return null;
+        }
+    }
+
+    /**
+     * Removes the managed capabilities from the calling thread along with the context, and restores the capabilities the
+     * thread had before, which belong to whatever context the application uses on it besides this canvas.
+     */
+    private void uninstallCapabilities() {
+        if (capabilitiesInstalled) {
+            capabilitiesInstalled = false;
+            GL.setCapabilities(previousCapabilities);
+        }
+    }
+
     protected void afterRender() {
-        clearCurrentAndUnlock();
+        if (surfaceUnlockedForFrame) {
+            surfaceUnlockedForFrame = false;
+            if (!isRenderThread()) {
+                lock();
+                clearCurrentAndUnlock();
+            }
+            return;
+        }
+        if (isRenderThread()) {
+            // The render thread keeps the context current until the next frame.
+            unlock();
+        } else {
+            clearCurrentAndUnlock();
+        }
+    }
+
+    private void lock() {
+        try {
+            platformCanvas.lock();
+        } catch (AWTException e) {
+            throw new RuntimeException("Failed to lock Canvas", e);
+        }
+    }
+
+    private void unlock() {
+        try {
+            platformCanvas.unlock(); // <- MUST unlock on Linux
+        } catch (AWTException e) {
+            throw new RuntimeException("Failed to unlock Canvas", e);
+        }
     }
 
     private void clearCurrentAndUnlock() {
         Throwable failure = null;
         try {
+            uninstallCapabilities();
             if (!platformCanvas.makeCurrent(0L)) {
                 failure = new IllegalStateException("Failed to clear the current OpenGL context");
             }
@@ -235,6 +1244,7 @@ public abstract class AWTGLCanvas extends Canvas {
 
     private void releaseDrawingSurfaceAfterFailure(Throwable failure) {
         try {
+            uninstallCapabilities();
             if (!platformCanvas.makeCurrent(0L)) {
                 failure.addSuppressed(new IllegalStateException("Failed to clear the current OpenGL context"));
             }
@@ -250,6 +1260,29 @@ public abstract class AWTGLCanvas extends Canvas {
         }
     }
 
+    /**
+     * Returns whether the calling thread is AWT's event-dispatch thread. {@link EventQueue#isDispatchThread()} takes a
+     * lock that allocates when contended, so other threads are ruled out by their class first to keep frames free of
+     * allocations.
+     */
+    private static boolean isEventDispatchThread() {
+        Class<?> dispatchThreadClass = EventDispatchThreadClass.CLASS;
+        return (dispatchThreadClass == null || dispatchThreadClass.isInstance(Thread.currentThread()))
+                && EventQueue.isDispatchThread();
+    }
+
+    private static final class EventDispatchThreadClass {
+        static final Class<?> CLASS = load();
+
+        private static Class<?> load() {
+            try {
+                return Class.forName("java.awt.EventDispatchThread", false, EventQueue.class.getClassLoader());
+            } catch (ClassNotFoundException | LinkageError e) {
+                return null;
+            }
+        }
+    }
+
     private static void rethrow(Throwable failure) {
         if (failure instanceof Error) {
             throw (Error) failure;
@@ -268,6 +1301,22 @@ public abstract class AWTGLCanvas extends Canvas {
     }
 
     public <T> T executeInContext(Callable<T> callable) throws Exception {
+        if (isEventDispatchThread()) {
+            long start = System.nanoTime();
+            try {
+                return executeInContextNow(callable);
+            } finally {
+                eventDispatchThreadStalled(System.nanoTime() - start);
+            }
+        }
+        return executeInContextNow(callable);
+    }
+
+    private <T> T executeInContextNow(Callable<T> callable) throws Exception {
+        RenderThread thread = renderThread;
+        if (thread != null && !thread.isCurrentThread()) {
+            return thread.call(() -> executeInContext(callable));
+        }
         lifecycleLock.lock();
         try {
             beforeRender();
@@ -286,6 +1335,24 @@ public abstract class AWTGLCanvas extends Canvas {
     }
 
     public void runInContext(Runnable runnable) {
+        if (isEventDispatchThread()) {
+            long start = System.nanoTime();
+            try {
+                runInContextNow(runnable);
+            } finally {
+                eventDispatchThreadStalled(System.nanoTime() - start);
+            }
+            return;
+        }
+        runInContextNow(runnable);
+    }
+
+    private void runInContextNow(Runnable runnable) {
+        RenderThread thread = renderThread;
+        if (thread != null && !thread.isCurrentThread()) {
+            thread.run(() -> runInContext(runnable));
+            return;
+        }
         lifecycleLock.lock();
         try {
             beforeRender();
@@ -304,35 +1371,271 @@ public abstract class AWTGLCanvas extends Canvas {
     }
 
     /**
-     * Makes this canvas's context current and invokes {@link #initGL()} when necessary, followed by {@link #paintGL()}.
+     * Queues {@code task} to run in this canvas's context and returns immediately.
      *
-     * <p>The callbacks run while the lifecycle lock is held. They must not call
-     * {@link EventQueue#invokeAndWait(Runnable)}, synchronize on {@link Component#getTreeLock()}, or invoke AWT/Swing
-     * operations that acquire the tree lock. Such calls can deadlock with canvas removal on the event-dispatch thread.
-     * Post AWT work asynchronously instead.</p>
+     * <p>Unlike {@link #executeInContext(Callable)}, which locks the drawing surface and makes the context current for
+     * every call, queued tasks run in one batch: at the start of the next frame rendered by {@link #render()}, after
+     * {@link #initGL()} and before {@link #paintGL()}, or on the {@linkplain #startRenderThread() render thread} as soon
+     * as possible if it has no frame pending. Without a render thread, tasks wait for the next frame. They run in
+     * submission order and never before {@link #initGL()}.</p>
+     *
+     * <p>The returned future completes with the task's result or failure; a failing task does not affect the others.
+     * Tasks that have not run when the canvas is disposed fail with an {@link IllegalStateException}. This method can
+     * be called from any thread.</p>
      */
-    public void render() {
+    public <T> CompletableFuture<T> submit(Callable<T> task) {
+        Objects.requireNonNull(task, "task");
+        CompletableFuture<T> future = new CompletableFuture<>();
+        submittedTasks.add(new SubmittedTask<>(task, future));
+        scheduleSubmittedTasks();
+        return future;
+    }
+
+    /**
+     * Queues {@code task} to run in this canvas's context and returns immediately, like {@link #submit(Callable)}.
+     */
+    public CompletableFuture<Void> submit(Runnable task) {
+        Objects.requireNonNull(task, "task");
+        return submit(() -> {
+            task.run();
+            return null;
+        });
+    }
+
+    private void scheduleSubmittedTasks() {
+        // A pending frame has not started yet, because it clears the flag first, and runs the task just queued.
+        if (renderPending.get()) {
+            return;
+        }
+        RenderThread thread = renderThread;
+        if (thread != null && submittedTasksPending.compareAndSet(false, true)
+                && !thread.schedule(this::runSubmittedTasksOutsideFrame, 0L)) {
+            submittedTasksPending.set(false);
+        }
+    }
+
+    private void runSubmittedTasksOutsideFrame() {
+        submittedTasksPending.set(false);
+        if (submittedTasks.isEmpty()) {
+            return;
+        }
         lifecycleLock.lock();
         try {
+            // Tasks never run before initGL(), and a parked context has no drawable until the next frame.
+            if (!initCalled || parked || disposing || detaching || renderThread == null) {
+                return;
+            }
             beforeRender();
             Throwable callbackFailure = null;
             try {
-                if (!initCalled) {
-                    initGL();
-                    initCalled = true;
-                }
-                paintGL();
+                runSubmittedTasks();
             } catch (RuntimeException | Error failure) {
                 callbackFailure = failure;
                 throw failure;
             } finally {
                 afterRender(callbackFailure);
             }
+        } catch (RuntimeException | Error e) {
+            Thread thread = Thread.currentThread();
+            thread.getUncaughtExceptionHandler().uncaughtException(thread, e);
+        } finally {
+            lifecycleLock.unlock();
+        }
+    }
+
+    /**
+     * Runs the queued tasks, including those queued while the batch runs. The context must be current.
+     */
+    private void runSubmittedTasks() {
+        SubmittedTask<?> task;
+        while ((task = submittedTasks.poll()) != null) {
+            task.run();
+        }
+    }
+
+    private void failSubmittedTasks() {
+        SubmittedTask<?> task;
+        while ((task = submittedTasks.poll()) != null) {
+            task.future.completeExceptionally(new IllegalStateException("Canvas was disposed before the task ran"));
+        }
+    }
+
+    private static final class SubmittedTask<T> {
+        final Callable<T> callable;
+        final CompletableFuture<T> future;
+
+        SubmittedTask(Callable<T> callable, CompletableFuture<T> future) {
+            this.callable = callable;
+            this.future = future;
+        }
+
+        void run() {
+            if (future.isDone()) {
+                // Cancelled by the submitter.
+                return;
+            }
+            try {
+                future.complete(callable.call());
+            } catch (Throwable failure) {
+                future.completeExceptionally(failure);
+            }
+        }
+    }
+
+    /**
+     * Makes this canvas's context current and invokes {@link #initGL()} when necessary, followed by {@link #paintGL()}.
+     *
+     * <p>The callbacks run while the lifecycle lock is held. They must not call
+     * {@link EventQueue#invokeAndWait(Runnable)}, synchronize on {@link Component#getTreeLock()}, or invoke AWT/Swing
+     * operations that acquire the tree lock. Such calls can deadlock with canvas removal on the event-dispatch thread.
+     * Post AWT work asynchronously instead.</p>
+     *
+     * <p>While a {@linkplain #startRenderThread() render thread} is running, the frame is rendered on that thread and
+     * this method waits for it to complete.</p>
+     *
+     * <p>If the {@linkplain #getFramePacer() frame pacer} has a target frame rate, this method first waits until the
+     * next frame may start.</p>
+     *
+     * <p>If {@linkplain #setRenderOffEventDispatchThread(boolean) enabled}, a call on the event-dispatch thread only
+     * {@linkplain #requestRender() requests} a frame from the render thread and returns immediately.</p>
+     */
+    public void render() {
+        if (isEventDispatchThread()) {
+            long start = System.nanoTime();
+            try {
+                if (renderOffEventDispatchThread) {
+                    requestRender();
+                } else {
+                    renderNow();
+                }
+            } finally {
+                eventDispatchThreadStalled(System.nanoTime() - start);
+            }
+            return;
+        }
+        renderNow();
+    }
+
+    private void renderNow() {
+        RenderThread thread = renderThread;
+        if (thread != null && !thread.isCurrentThread()) {
+            thread.run(this::render);
+            return;
+        }
+        framePacer.awaitFrame();
+        lifecycleLock.lock();
+        try {
+            renderFrame();
+        } finally {
+            lifecycleLock.unlock();
+        }
+    }
+
+    /**
+     * Attempts to render a frame like {@link #render()}, but skips it instead of waiting if the canvas cannot render
+     * right away.
+     *
+     * <p>Meant for callers that render on their own schedule, such as a {@link javax.swing.Timer} or a scheduled
+     * executor, so that a slow frame makes the following ones be skipped instead of piling up and arriving late in a
+     * burst. The {@linkplain #getFramePacer() frame pacer} is not waited for. Skipped frames are counted by
+     * {@link #getSkippedFrameCount()}.</p>
+     *
+     * <p>While a {@linkplain #startRenderThread() render thread} is running, the frame is rendered on that thread and
+     * this method waits for it, but only if the render thread has no other work running or queued, such as a
+     * {@linkplain #requestRender() requested} frame that waits for the frame pacer. Failures of the callbacks are
+     * rethrown as by {@link #render()}.</p>
+     *
+     * @return {@link RenderResult#RENDERED}, or why the frame was skipped
+     */
+    public RenderResult tryRender() {
+        return tryRender(0L, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Attempts to render a frame like {@link #tryRender()}, waiting up to {@code timeout} for another frame, context
+     * operation or disposal that is in progress to finish.
+     *
+     * @return {@link RenderResult#RENDERED}, or why the frame was skipped
+     */
+    public RenderResult tryRender(long timeout, TimeUnit unit) {
+        RenderResult result = tryRenderFrame(unit.toNanos(timeout));
+        if (result != RenderResult.RENDERED) {
+            skippedFrames.incrementAndGet();
+        }
+        return result;
+    }
+
+    private RenderResult tryRenderFrame(long timeoutNanos) {
+        if (!isDisplayable()) {
+            return RenderResult.NO_PEER;
+        }
+        RenderThread thread = renderThread;
+        if (thread != null && !thread.isCurrentThread()) {
+            // Requested frames and context operations wait in the render thread's queue without holding the lifecycle
+            // lock, so the frame is skipped while the queue is not empty instead of being queued behind them.
+            RenderResult result = thread.callIfIdle(tryRenderFrameOnRenderThread, timeoutNanos);
+            return result != null ? result : RenderResult.BUSY;
+        }
+        if (!tryLockLifecycle(timeoutNanos)) {
+            return RenderResult.BUSY;
+        }
+        try {
+            thread = renderThread;
+            if (thread != null && !thread.isCurrentThread()) {
+                // The render thread was started while the lock was awaited, and owns the context now.
+                return RenderResult.BUSY;
+            }
+            if (disposing || detaching) {
+                return RenderResult.DISPOSING;
+            }
+            renderFrame();
+            return RenderResult.RENDERED;
         } finally {
             lifecycleLock.unlock();
         }
     }
 
+    private boolean tryLockLifecycle(long timeoutNanos) {
+        if (timeoutNanos <= 0L) {
+            return lifecycleLock.tryLock();
+        }
+        try {
+            return lifecycleLock.tryLock(timeoutNanos, TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    /**
+     * Returns the number of frames that {@link #tryRender()} skipped.
+     */
+    public long getSkippedFrameCount() {
+        return skippedFrames.get();
+    }
+
+    private void renderFrame() {
+        beforeRender();
+        Throwable callbackFailure = null;
+        try {
+            framePacer.frameStarted();
+            long frameStart = System.nanoTime();
+            if (!initCalled) {
+                initGL();
+                initCalled = true;
+            }
+            runSubmittedTasks();
+            paintGL();
+            paintedFrames.incrementAndGet();
+            framePacer.frameRendered(System.nanoTime() - frameStart);
+        } catch (RuntimeException | Error failure) {
+            callbackFailure = failure;
+            throw failure;
+        } finally {
+            afterRender(callbackFailure);
+        }
+    }
+
     private void afterRender(Throwable callbackFailure) {
         try {
             afterRender();
@@ -390,6 +1693,9 @@ public abstract class AWTGLCanvas extends Canvas {
      * thread-local; applications rendering on another thread must install the corresponding capabilities before issuing
      * GL calls here and clear or restore them before returning.</p>
      *
+     * <p>For a {@linkplain #setContextParkingTimeout(long, TimeUnit) parked} context, no default framebuffer is bound
+     * while this callback runs.</p>
+     *
      * <p>Any {@link RuntimeException} or {@link Error} thrown by this callback is rethrown from the disposing operation
      * after context and platform cleanup have been attempted. Automatic AWT removal also destroys the native peer before
      * rethrowing the failure.</p>
@@ -405,6 +1711,180 @@ public abstract class AWTGLCanvas extends Canvas {
     protected void disposeGL() {
     }
 
+    /**
+     * Returns the frame pacer that limits the frame rate of {@link #render()} and measures the cost of its frames.
+     */
+    public FramePacer getFramePacer() {
+        return framePacer;
+    }
+
+    /**
+     * Limits how many swapped frames the GPU may still be processing when the next frame starts, or disables the limit
+     * with {@code 0}, which is the default.
+     *
+     * <p>When enabled, {@link #swapBuffers()} inserts a fence after every swap, and the next context activation for
+     * rendering waits until fewer than {@code maxFramesInFlight} fences are pending. A value of {@code 1} lets the CPU
+     * start a frame only after the GPU has finished the previous one, which minimizes latency at the cost of
+     * CPU/GPU overlap; larger values trade latency for throughput. The wait happens while the drawing surface is
+     * locked, unless it is {@linkplain #setNarrowSurfaceLock(boolean) only locked for binding and swapping}, and gives
+     * up after one second, see {@link #getFenceWaitTimeouts()}. Contexts that support neither OpenGL 3.2 nor OpenGL
+     * ES 3.0 are not limited.</p>
+     *
+     * @throws IllegalArgumentException if {@code maxFramesInFlight} is negative
+     */
+    public void setMaxFramesInFlight(int maxFramesInFlight) {
+        if (maxFramesInFlight < 0) {
+            throw new IllegalArgumentException("maxFramesInFlight must not be negative");
+        }
+        this.maxFramesInFlight = maxFramesInFlight;
+    }
+
+    /**
+     * Sets whether the JAWT drawing surface is locked only while the context is bound to it and while buffers are
+     * swapped, instead of for the whole frame. The default is {@code false}.
+     *
+     * <p>On X11, locking the drawing surface takes AWT's toolkit lock, so with the default every canvas and the
+     * event-dispatch thread wait while any canvas runs {@link #paintGL()}. With a narrow lock, canvases rendering on
+     * different threads issue their OpenGL commands concurrently. {@link #paintGL()} must then swap buffers through
+     * {@link #swapBuffers()} and must not call JAWT or Xlib itself. Only GLX and EGL support this; other platforms keep
+     * the surface locked for the whole frame.</p>
+     */
+    public void setNarrowSurfaceLock(boolean narrowSurfaceLock) {
+        this.narrowSurfaceLock = narrowSurfaceLock;
+    }
+
+    /**
+     * Returns whether the drawing surface is only locked for binding and swapping, as set by
+     * {@link #setNarrowSurfaceLock(boolean)}.
+     */
+    public boolean isNarrowSurfaceLock() {
+        return narrowSurfaceLock;
+    }
+
+    /**
+     * Returns the limit set by {@link #setMaxFramesInFlight(int)}, or {@code 0} if frames in flight are not limited.
+     */
+    public int getMaxFramesInFlight() {
+        return maxFramesInFlight;
+    }
+
+    /**
+     * Sets whether {@link #render()} called on the event-dispatch thread is forwarded to this canvas's
+     * {@linkplain #startRenderThread() render thread}, which is started if necessary, instead of running
+     * {@link #paintGL()} there.
+     *
+     * <p>The call then behaves like {@link #requestRender()}: it returns immediately, merges with other pending requests
+     * and reports failures to the render thread's uncaught exception handler. Swing input handling is no longer held up
+     * by the frame. {@link #runInContext(Runnable)} and {@link #executeInContext(Callable)} still wait for their result;
+     * use {@link #submit(Callable)} to avoid that. Disabled by default.</p>
+     */
+    public void setRenderOffEventDispatchThread(boolean renderOffEventDispatchThread) {
+        this.renderOffEventDispatchThread = renderOffEventDispatchThread;
+    }
+
+    /**
+     * Returns whether {@link #render()} on the event-dispatch thread is forwarded to the render thread, as set by
+     * {@link #setRenderOffEventDispatchThread(boolean)}.
+     */
+    public boolean isRenderOffEventDispatchThread() {
+        return renderOffEventDispatchThread;
+    }
+
+    /**
+     * Sets whether this canvas creates and installs the {@link GLCapabilities} of its context itself. Disabled by default.
+     *
+     * <p>When enabled, the capabilities are installed on the rendering thread whenever the context is made current, before
+     * {@link #initGL()}, {@link #paintGL()}, {@link #disposeGL()} and context tasks run, and removed again when the context
+     * is released. {@link #initGL()} then no longer has to call {@link GL#createCapabilities()}, and several canvases can
+     * be rendered from one thread without calling {@link GL#setCapabilities(GLCapabilities)}. Contexts with the same
+     * vendor, renderer, version, profile and context flags share one instance, also across context re-creation. The
+     * capabilities the thread had before are restored when the context is released.</p>
+     *
+     * <p>OpenGL ES contexts need {@code GLESCapabilities}, which this canvas does not create. Rendering a canvas whose
+     * context turned out to be an OpenGL ES context with management enabled fails.</p>
+     *
+     * @throws IllegalStateException if enabled for a canvas that requests an OpenGL ES context
+     */
+    public void setManageCapabilities(boolean manageCapabilities) {
+        if (manageCapabilities && data.api == GLData.API.GLES) {
+            throw new IllegalStateException("Capabilities of OpenGL ES contexts cannot be managed");
+        }
+        this.manageCapabilities = manageCapabilities;
+    }
+
+    /**
+     * Returns whether this canvas manages the capabilities of its context, as set by
+     * {@link #setManageCapabilities(boolean)}.
+     */
+    public boolean isManageCapabilities() {
+        return manageCapabilities;
+    }
+
+    /**
+     * Returns the capabilities managed for the current context, or {@code null} if capabilities are not
+     * {@linkplain #setManageCapabilities(boolean) managed} or the context has not been made current since it was created.
+     */
+    public GLCapabilities getCapabilities() {
+        return capabilities;
+    }
+
+    /**
+     * Returns how long the most recent call of {@link #render()}, {@link #runInContext(Runnable)} or
+     * {@link #executeInContext(Callable)} on the event-dispatch thread kept that thread from processing events, in
+     * nanoseconds. This includes waiting for the render thread and for the lifecycle lock.
+     */
+    public long getLastEventDispatchThreadStallNanos() {
+        return lastEventDispatchThreadStallNanos;
+    }
+
+    /**
+     * Returns the accumulated time this canvas's OpenGL work kept the event-dispatch thread from processing events, in
+     * nanoseconds.
+     *
+     * @see #getLastEventDispatchThreadStallNanos()
+     */
+    public long getTotalEventDispatchThreadStallNanos() {
+        return totalEventDispatchThreadStallNanos;
+    }
+
+    private void eventDispatchThreadStalled(long nanos) {
+        lastEventDispatchThreadStallNanos = nanos;
+        totalEventDispatchThreadStallNanos += nanos;
+    }
+
+    /**
+     * Returns how long the most recent context activation waited for frames in flight, in nanoseconds.
+     */
+    public long getLastFenceWaitNanos() {
+        return frameFences.getLastWaitNanos();
+    }
+
+    /**
+     * Returns the accumulated time spent waiting for frames in flight, in nanoseconds.
+     */
+    public long getTotalFenceWaitNanos() {
+        return frameFences.getTotalWaitNanos();
+    }
+
+    /**
+     * Returns how many waits for frames in flight timed out or failed. After a timeout, rendering proceeds and the
+     * next context activation waits for the same frame again, so a steadily growing count means the GPU stopped
+     * making progress.
+     */
+    public long getFenceWaitTimeouts() {
+        return frameFences.getUnsatisfiedWaits();
+    }
+
+    /**
+     * Returns how many times the framebuffer size had to be queried from the native window system. Platforms that
+     * cache the size only query it after the canvas may have been resized, so compare this with
+     * {@link #getPaintedFrameCount()} to see how many round trips per frame remain. Returns {@code 0} on platforms
+     * that do not report it.
+     */
+    public long getFramebufferSizeQueries() {
+        return platformCanvas.getFramebufferSizeQueries();
+    }
+
     public int getFramebufferWidth() {
         return framebufferWidth;
     }
@@ -414,17 +1894,16 @@ public abstract class AWTGLCanvas extends Canvas {
     }
 
     private void updateFramebufferSize() {
-        int[] platformFramebufferSize = new int[2];
+        int[] platformFramebufferSize = this.platformFramebufferSize;
         if (platformCanvas.getFramebufferSize(platformFramebufferSize)) {
             framebufferWidth = Math.max(0, platformFramebufferSize[0]);
             framebufferHeight = Math.max(0, platformFramebufferSize[1]);
         } else {
-            updateFramebufferSizeFromComponent();
+            updateFramebufferSizeFromComponent(platformFramebufferSize);
         }
     }
 
-    private void updateFramebufferSizeFromComponent() {
-        int[] size = new int[2];
+    private void updateFramebufferSizeFromComponent(int[] size) {
         FramebufferSizeUtil.getScaledSize(this, getWidth(), getHeight(), size);
         framebufferWidth = size[0];
         framebufferHeight = size[1];
@@ -448,7 +1927,21 @@ public abstract class AWTGLCanvas extends Canvas {
             if (!platformCanvas.isCurrent(context)) {
                 throw new IllegalStateException("OpenGL context must be current before swapping buffers");
             }
-            platformCanvas.swapBuffers();
+            long swapStart = System.nanoTime();
+            if (surfaceUnlockedForFrame) {
+                lock();
+                try {
+                    platformCanvas.swapBuffers();
+                } finally {
+                    unlock();
+                }
+            } else {
+                platformCanvas.swapBuffers();
+            }
+            framePacer.swapped(System.nanoTime() - swapStart);
+            if (maxFramesInFlight > 0) {
+                frameFences.insert(effective, platformCanvas);
+            }
         } finally {
             lifecycleLock.unlock();
         }
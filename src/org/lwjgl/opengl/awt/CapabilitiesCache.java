@@ -0,0 +1,93 @@
+package org.lwjgl.opengl.awt;
+
+import static org.lwjgl.system.MemoryUtil.*;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.lwjgl.opengl.GL;
+import org.lwjgl.opengl.GL11;
+import org.lwjgl.opengl.GL30;
+import org.lwjgl.opengl.GL32;
+import org.lwjgl.opengl.GLCapabilities;
+import org.lwjgl.system.APIUtil;
+import org.lwjgl.system.APIUtil.APIVersion;
+import org.lwjgl.system.Checks;
+import org.lwjgl.system.FunctionProvider;
+import org.lwjgl.system.JNI;
+import org.lwjgl.system.MemoryStack;
+
+/**
+ * Process-wide cache of the {@link GLCapabilities} of canvases that {@linkplain AWTGLCanvas#setManageCapabilities(boolean)
+ * manage} them.
+ *
+ * <p>Creating capabilities looks up every function and extension of the OpenGL implementation. Contexts whose vendor,
+ * renderer, version, profile and context flags are equal get the same functions and extensions, so they share one
+ * instance. This includes a context that replaces a disposed one. Entries live as long as the process.</p>
+ */
+final class CapabilitiesCache {
+    static final CapabilitiesCache GL_CAPABILITIES = new CapabilitiesCache();
+
+    private final ConcurrentMap<List<Object>, GLCapabilities> entries = new ConcurrentHashMap<>();
+
+    GLCapabilities get(List<Object> key) {
+        return entries.get(key);
+    }
+
+    /**
+     * Stores {@code value} unless another thread stored a value for {@code key} first, and returns the stored value.
+     */
+    GLCapabilities putIfAbsent(List<Object> key, GLCapabilities value) {
+        GLCapabilities existing = entries.putIfAbsent(key, value);
+        return existing != null ? existing : value;
+    }
+
+    int size() {
+        return entries.size();
+    }
+
+    /**
+     * Creates the key for a context. The profile mask and context flags are {@code 0} where the version does not define
+     * them.
+     */
+    static List<Object> key(String vendor, String renderer, String version, int profileMask, int contextFlags) {
+        return Arrays.asList(vendor, renderer, version, profileMask, contextFlags);
+    }
+
+    /**
+     * Returns capabilities for the OpenGL context that is current on the calling thread, creating them if no context with
+     * the same key was seen before. Concurrent first requests may both create capabilities, but only one is kept.
+     */
+    static GLCapabilities forCurrentContext() {
+        FunctionProvider functionProvider = GL.getFunctionProvider();
+        long glGetString = functionProvider.getFunctionAddress("glGetString");
+        long glGetIntegerv = functionProvider.getFunctionAddress("glGetIntegerv");
+        String version = getString(GL11.GL_VERSION, glGetString);
+        APIVersion apiVersion = APIUtil.apiParseVersion(version);
+        // Querying either value on an older context would leave an error for the application to find.
+        int profileMask = GLUtil.atLeast32(apiVersion.major, apiVersion.minor)
+                ? getInteger(GL32.GL_CONTEXT_PROFILE_MASK, glGetIntegerv)
+                : 0;
+        int contextFlags = GLUtil.atLeast30(apiVersion.major, apiVersion.minor)
+                ? getInteger(GL30.GL_CONTEXT_FLAGS, glGetIntegerv)
+                : 0;
+        List<Object> key = key(getString(GL11.GL_VENDOR, glGetString), getString(GL11.GL_RENDERER, glGetString),
+                version, profileMask, contextFlags);
+        GLCapabilities capabilities = GL_CAPABILITIES.get(key);
+        return capabilities != null ? capabilities : GL_CAPABILITIES.putIfAbsent(key, GL.createCapabilities());
+    }
+
+    private static int getInteger(int pname, long function) {
+        try (MemoryStack stack = MemoryStack.stackPush()) {
+            long params = stack.ncalloc(4, 1, 4);
+            JNI.callPV(pname, params, function);
+            return memGetInt(params);
+        }
+    }
+
+    private static String getString(int pname, long function) {
+        return memUTF8(Checks.check(JNI.callP(pname, function)));
+    }
+}
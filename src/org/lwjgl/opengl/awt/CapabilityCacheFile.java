@@ -0,0 +1,109 @@
+package org.lwjgl.opengl.awt;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.Properties;
+
+/**
+ * Optional file that keeps context creation results across JVM starts.
+ *
+ * <p>The file is enabled with the system property {@value #PROPERTY}. A value of {@code true} stores it in the user's
+ * cache directory, that is {@code $XDG_CACHE_HOME/lwjgl3-awt} or {@code ~/.cache/lwjgl3-awt}; any other non-empty value
+ * except {@code false} is used as the path of the file. Entries are keyed by the lwjgl3-awt version and the driver that
+ * created the context, so upgrading either leaves older entries unused.</p>
+ *
+ * <p>The cache only ever speeds up context creation. A file that cannot be read, parsed or written is ignored.</p>
+ */
+final class CapabilityCacheFile {
+    static final String PROPERTY = "org.lwjgl.awt.capabilityCache";
+
+    private final Path path;
+    private final Properties entries = new Properties();
+    private boolean loaded;
+
+    CapabilityCacheFile(Path path) {
+        this.path = path;
+    }
+
+    /**
+     * Returns the file configured through {@value #PROPERTY}, or {@code null} if the cache is disabled.
+     */
+    static CapabilityCacheFile fromSystemProperty() {
+        String value;
+        try {
+            value = System.getProperty(PROPERTY);
+        } catch (SecurityException e) {
+            return null;
+        }
+        if (value == null || value.isEmpty() || "false".equalsIgnoreCase(value)) {
+            return null;
+        }
+        try {
+            return new CapabilityCacheFile("true".equalsIgnoreCase(value) ? defaultPath() : Paths.get(value));
+        } catch (RuntimeException e) {
+            return null;
+        }
+    }
+
+    private static Path defaultPath() {
+        String cacheHome = System.getenv("XDG_CACHE_HOME");
+        Path directory = cacheHome != null && !cacheHome.isEmpty()
+                ? Paths.get(cacheHome)
+                : Paths.get(System.getProperty("user.home"), ".cache");
+        return directory.resolve("lwjgl3-awt").resolve("capabilities.properties");
+    }
+
+    synchronized String get(String key) {
+        load();
+        return entries.getProperty(key);
+    }
+
+    /**
+     * Stores {@code value} and rewrites the file, merging entries that other processes wrote in the meantime.
+     */
+    synchronized void put(String key, String value) {
+        load();
+        entries.putAll(read());
+        entries.setProperty(key, value);
+        try {
+            Files.createDirectories(path.toAbsolutePath().getParent());
+            // Replace the file atomically so that concurrently starting processes never read a partial file.
+            Path temporary = Files.createTempFile(path.toAbsolutePath().getParent(), "capabilities", ".tmp");
+            try {
+                try (OutputStream output = Files.newOutputStream(temporary)) {
+                    entries.store(output, "lwjgl3-awt context capability cache");
+                }
+                Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } finally {
+                Files.deleteIfExists(temporary);
+            }
+        } catch (IOException | RuntimeException ignored) {
+            // The entry is still used by this process.
+        }
+    }
+
+    private void load() {
+        if (!loaded) {
+            loaded = true;
+            entries.putAll(read());
+        }
+    }
+
+    private Properties read() {
+        Properties properties = new Properties();
+        if (!Files.isRegularFile(path)) {
+            return properties;
+        }
+        try (InputStream input = Files.newInputStream(path)) {
+            properties.load(input);
+        } catch (IOException | RuntimeException e) {
+            return new Properties();
+        }
+        return properties;
+    }
+}
@@ -0,0 +1,104 @@
+package org.lwjgl.opengl.awt;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Process-wide cache of framebuffer configuration choices.
+ *
+ * <p>Choosing a configuration for the same display, screen and window visual with equal {@link GLData} always gives the
+ * same result, so only the first canvas has to perform the native queries. Entries live as long as the process, like
+ * the AWT displays they refer to. Platforms only cache successful choices: errors and configurations that match nothing
+ * are looked up again by the next canvas, so failures are reported again with their original message.</p>
+ */
+final class ConfigCache<T> {
+    private final ConcurrentMap<Key, T> entries = new ConcurrentHashMap<>();
+
+    T get(Key key) {
+        return entries.get(key);
+    }
+
+    /**
+     * Stores {@code value} unless another thread stored a value for {@code key} first, and returns the stored value.
+     */
+    T putIfAbsent(Key key, T value) {
+        T existing = entries.putIfAbsent(key, value);
+        return existing != null ? existing : value;
+    }
+
+    int size() {
+        return entries.size();
+    }
+
+    /**
+     * Creates the key for a configuration chosen for {@code data}. {@code variant} distinguishes choices that also
+     * depend on something other than {@code data}, such as the renderable type of a context version candidate.
+     */
+    static Key key(long display, int screen, long visualID, GLData data, int variant) {
+        return new Key(display, screen, visualID, variant, attributes(data));
+    }
+
+    /**
+     * Returns every attribute of {@code data} that can influence the choice of configuration or the verification of the
+     * required extensions. The share context is left out because it is only used once the configuration is chosen.
+     */
+    private static List<Object> attributes(GLData data) {
+        return Arrays.asList(
+                data.doubleBuffer, data.stereo,
+                data.redSize, data.greenSize, data.blueSize, data.alphaSize,
+                data.depthSize, data.stencilSize,
+                data.accumRedSize, data.accumGreenSize, data.accumBlueSize, data.accumAlphaSize,
+                // The number of samples alone decides whether sample buffers are requested.
+                data.samples,
+                data.majorVersion, data.minorVersion, data.versionPolicy,
+                data.forwardCompatible, data.profile, data.api, data.debug, data.swapInterval,
+                data.sRGB, data.pixelFormatFloat, data.contextReleaseBehavior,
+                data.colorSamplesNV, data.swapGroupNV, data.swapBarrierNV,
+                data.robustness, data.loseContextOnReset, data.contextResetIsolation, data.noError);
+    }
+
+    static final class Key {
+        private final long display;
+        private final int screen;
+        private final long visualID;
+        private final int variant;
+        private final List<Object> attributes;
+        private final int hash;
+
+        private Key(long display, int screen, long visualID, int variant, List<Object> attributes) {
+            this.display = display;
+            this.screen = screen;
+            this.visualID = visualID;
+            this.variant = variant;
+            this.attributes = attributes;
+            int hash = Long.hashCode(display);
+            hash = 31 * hash + screen;
+            hash = 31 * hash + Long.hashCode(visualID);
+            hash = 31 * hash + variant;
+            this.hash = 31 * hash + attributes.hashCode();
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (!(obj instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) obj;
+            return display == other.display
+                    && screen == other.screen
+                    && visualID == other.visualID
+                    && variant == other.variant
+                    && attributes.equals(other.attributes);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+}
@@ -0,0 +1,145 @@
+package org.lwjgl.opengl.awt;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Supplier;
+
+import org.lwjgl.awt.internal.LWJGLVersionChecker;
+import org.lwjgl.opengl.awt.GLData.VersionPolicy;
+import org.lwjgl.opengl.awt.GLUtil.ContextVersion;
+
+/**
+ * Remembers the highest context version that a driver created for a combination of client API, profile and context
+ * flags.
+ *
+ * <p>{@link VersionPolicy#AT_LEAST} and {@link VersionPolicy#HIGHEST} search the candidate versions, and each rejected
+ * version costs native round trips. Later canvases on the same display and driver try the remembered version
+ * first, see {@link ContextVersionProbe}.</p>
+ *
+ * <p>With a {@link CapabilityCacheFile}, versions are also remembered across JVM starts. A driver update may change
+ * the supported versions without changing the GLX or EGL strings that identify the driver, so the
+ * {@code GL_RENDERER} and {@code GL_VERSION} strings of the context are stored with each version. A persisted version
+ * is {@linkplain #isPreferredVerified verified} by comparing them with those of a context created for it, which makes
+ * a single attempt. If they differ, higher candidates are searched, and the entry is replaced by the version that was
+ * actually found, even if that is lower.</p>
+ */
+final class ContextVersionMemo {
+    private final ConcurrentMap<List<Object>, ContextVersion> versions = new ConcurrentHashMap<>();
+    private final CapabilityCacheFile file;
+    private final String libraryVersion;
+
+    ContextVersionMemo() {
+        this(CapabilityCacheFile.fromSystemProperty());
+    }
+
+    ContextVersionMemo(CapabilityCacheFile file) {
+        this.file = file;
+        this.libraryVersion = file != null ? LWJGLVersionChecker.libraryVersion() : null;
+    }
+
+    /**
+     * Returns the remembered version if it is among {@code candidates}, or {@code null}.
+     */
+    ContextVersion preferred(long display, String driver, GLData data, List<ContextVersion> candidates) {
+        if (data.versionPolicy == VersionPolicy.EXACT) {
+            return null;
+        }
+        ContextVersion known = versions.get(key(display, driver, data));
+        int index = known != null
+                ? indexOf(candidates, known.major, known.minor)
+                : persistedIndex(driver, data, candidates);
+        return index >= 0 ? candidates.get(index) : null;
+    }
+
+    /**
+     * Returns whether no candidate above the version returned by {@link #preferred} can be created. That is the case if
+     * the version was created by this process, or if it was persisted together with the strings of {@code renderer}.
+     *
+     * @param renderer supplies the {@code GL_RENDERER} and {@code GL_VERSION} of a context of the preferred version, or
+     *                 {@code null} if they cannot be read. Only called for a persisted version.
+     */
+    boolean isPreferredVerified(long display, String driver, GLData data, Supplier<String> renderer) {
+        if (versions.containsKey(key(display, driver, data))) {
+            return true;
+        }
+        if (file == null) {
+            return false;
+        }
+        String entry = file.get(persistentKey(driver, data));
+        int separator = entry != null ? entry.indexOf('|') : -1;
+        return separator >= 0 && entry.substring(separator + 1).equals(renderer.get());
+    }
+
+    private int persistedIndex(String driver, GLData data, List<ContextVersion> candidates) {
+        if (file == null) {
+            return -1;
+        }
+        String entry = file.get(persistentKey(driver, data));
+        if (entry == null) {
+            return -1;
+        }
+        int dot = entry.indexOf('.');
+        int separator = entry.indexOf('|');
+        if (dot < 0 || separator < dot) {
+            return -1;
+        }
+        try {
+            return indexOf(candidates,
+                    Integer.parseInt(entry.substring(0, dot)), Integer.parseInt(entry.substring(dot + 1, separator)));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    /**
+     * Records that a context of {@code version} was created, keeping the highest version created by this process.
+     *
+     * @param renderer supplies the {@code GL_RENDERER} and {@code GL_VERSION} of the created context, which is current
+     */
+    void succeeded(long display, String driver, GLData data, ContextVersion version, Supplier<String> renderer) {
+        if (data.versionPolicy == VersionPolicy.EXACT) {
+            return;
+        }
+        ContextVersion highest = versions.merge(key(display, driver, data), version,
+                (known, created) -> compare(known, created) >= 0 ? known : created);
+        if (file != null) {
+            // A stored entry of another renderer or driver version is dropped in favor of what this process found.
+            String key = persistentKey(driver, data);
+            String entry = highest + "|" + renderer.get();
+            if (!entry.equals(file.get(key))) {
+                file.put(key, entry);
+            }
+        }
+    }
+
+    private static List<Object> key(long display, String driver, GLData data) {
+        return Arrays.asList(display, driver, data.api, data.profile, data.debug, data.forwardCompatible,
+                data.robustness, data.loseContextOnReset, data.contextResetIsolation, data.noError);
+    }
+
+    /**
+     * Identifies an entry across processes, where the display connection differs but the driver identifies the
+     * display's vendor.
+     */
+    private String persistentKey(String driver, GLData data) {
+        return libraryVersion + "|" + driver + "|" + data.api + "|" + data.profile + "|" + data.debug + "|"
+                + data.forwardCompatible + "|" + data.robustness + "|" + data.loseContextOnReset + "|"
+                + data.contextResetIsolation + "|" + data.noError;
+    }
+
+    private static int indexOf(List<ContextVersion> candidates, int major, int minor) {
+        for (int i = 0; i < candidates.size(); i++) {
+            ContextVersion candidate = candidates.get(i);
+            if (candidate.major == major && candidate.minor == minor) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static int compare(ContextVersion version, ContextVersion other) {
+        return GLUtil.compare(version.major, version.minor, other.major, other.minor);
+    }
+}
@@ -0,0 +1,121 @@
+package org.lwjgl.opengl.awt;
+
+import java.awt.AWTException;
+import java.util.List;
+
+import org.lwjgl.opengl.awt.GLUtil.ContextVersion;
+
+/**
+ * Finds the highest creatable context version among the candidates of {@link GLUtil#contextVersionCandidates}.
+ *
+ * <p>A driver that creates a context of some version also creates contexts of the compatible lower versions, so the
+ * descending candidates are searched with a binary search instead of being tried one by one. That takes at most five
+ * attempts for the nineteen desktop OpenGL versions. A remembered version is tried first, which usually makes it a
+ * single attempt. A version that may be outdated, such as one stored by an earlier process before a driver update, is
+ * checked on its created context; if that fails, it is only a lower bound and the search continues above it. If every
+ * attempt of the search fails, the untried candidates are
+ * tried in order in case a driver does not behave monotonically.</p>
+ */
+final class ContextVersionProbe {
+    interface Attempt {
+        /**
+         * Tries to create a context of {@code version} and returns it, or {@code 0} if the driver rejected it.
+         */
+        long create(ContextVersion version) throws AWTException;
+    }
+
+    interface Destroy {
+        void destroy(long context);
+    }
+
+    interface Verify {
+        /**
+         * Returns whether {@code context}, created for the preferred version, shows that no higher candidate can be
+         * created.
+         */
+        boolean isVerified(long context) throws AWTException;
+    }
+
+    /** The created context, or {@code 0} if no candidate could be created. */
+    final long context;
+    /** The version of {@link #context}, or {@code null} if no candidate could be created. */
+    final ContextVersion version;
+    /** The number of versions that were tried. */
+    final int attempts;
+
+    private ContextVersionProbe(long context, ContextVersion version, int attempts) {
+        this.context = context;
+        this.version = version;
+        this.attempts = attempts;
+    }
+
+    /**
+     * Creates a context of the highest version among {@code candidates} that {@code attempt} accepts. Contexts created
+     * on the way to a higher version are passed to {@code destroy}.
+     *
+     * @param preferred a candidate to try first, or {@code null}
+     * @param verify decides whether higher candidates are still searched if {@code preferred} can be created
+     */
+    static ContextVersionProbe probe(List<ContextVersion> candidates, ContextVersion preferred, Verify verify,
+            Attempt attempt, Destroy destroy) throws AWTException {
+        int count = candidates.size();
+        boolean[] tried = new boolean[count];
+        int attempts = 0;
+        int best = -1;
+        long bestContext = 0L;
+        try {
+            int preferredIndex = preferred != null ? candidates.indexOf(preferred) : -1;
+            int low = 0;
+            int high = count - 1;
+            if (preferredIndex >= 0) {
+                tried[preferredIndex] = true;
+                attempts++;
+                long context = attempt.create(preferred);
+                if (context != 0L) {
+                    best = preferredIndex;
+                    bestContext = context;
+                    if (preferredIndex == 0 || verify.isVerified(context)) {
+                        return new ContextVersionProbe(context, preferred, attempts);
+                    }
+                    // Candidates are in descending order, so only those before the preferred version remain.
+                    high = preferredIndex - 1;
+                }
+            }
+            while (low <= high) {
+                int middle = (low + high) >>> 1;
+                long context = 0L;
+                if (!tried[middle]) {
+                    tried[middle] = true;
+                    attempts++;
+                    context = attempt.create(candidates.get(middle));
+                }
+                if (context != 0L) {
+                    if (bestContext != 0L) {
+                        destroy.destroy(bestContext);
+                    }
+                    best = middle;
+                    bestContext = context;
+                    high = middle - 1;
+                } else {
+                    low = middle + 1;
+                }
+            }
+            for (int i = 0; i < count && bestContext == 0L; i++) {
+                if (!tried[i]) {
+                    tried[i] = true;
+                    attempts++;
+                    bestContext = attempt.create(candidates.get(i));
+                    best = i;
+                }
+            }
+        } catch (AWTException | RuntimeException | Error failure) {
+            if (bestContext != 0L) {
+                destroy.destroy(bestContext);
+            }
+            throw failure;
+        }
+        return bestContext != 0L
+                ? new ContextVersionProbe(bestContext, candidates.get(best), attempts)
+                : new ContextVersionProbe(0L, null, attempts);
+    }
+}
@@ -0,0 +1,69 @@
+package org.lwjgl.opengl.awt;
+
+import org.lwjgl.system.jawt.JAWT;
+import org.lwjgl.system.jawt.JAWTDrawingSurface;
+
+import java.awt.AWTException;
+import java.awt.Canvas;
+
+import static org.lwjgl.system.jawt.JAWTFunctions.*;
+
+/**
+ * The JAWT drawing surface of a canvas, obtained once per native peer and only locked and unlocked for each frame.
+ *
+ * <p>The surface is kept from the first {@link #lock(Canvas)} until {@link #release()}, which platforms call when the
+ * peer is about to be destroyed or the canvas is disposed. A failed lock releases it as well, so that the next lock
+ * starts over with a fresh surface. All methods must be called with the owning canvas's lifecycle lock held.</p>
+ */
+final class DrawingSurface {
+    private final JAWT awt;
+    private JAWTDrawingSurface surface;
+
+    DrawingSurface(JAWT awt) {
+        this.awt = awt;
+    }
+
+    /**
+     * Locks the drawing surface of {@code canvas}, getting it from JAWT first if none is held.
+     *
+     * @return the flags reported by the lock, which never include {@code JAWT_LOCK_ERROR}
+     */
+    int lock(Canvas canvas) throws AWTException {
+        JAWTDrawingSurface surface = this.surface;
+        if (surface == null) {
+            surface = JAWT_GetDrawingSurface(canvas, awt.GetDrawingSurface());
+            if (surface == null) {
+                throw new AWTException("Failed to get JAWT drawing surface");
+            }
+            this.surface = surface;
+        }
+        int lock = JAWT_DrawingSurface_Lock(surface, surface.Lock());
+        if ((lock & JAWT_LOCK_ERROR) != 0) {
+            release();
+            throw new AWTException("JAWT_DrawingSurface_Lock() failed");
+        }
+        return lock;
+    }
+
+    /**
+     * Returns the surface locked by the last successful {@link #lock(Canvas)}.
+     */
+    JAWTDrawingSurface get() {
+        return surface;
+    }
+
+    void unlock() {
+        JAWT_DrawingSurface_Unlock(surface, surface.Unlock());
+    }
+
+    /**
+     * Frees the held surface, if any. The surface must not be locked.
+     */
+    void release() {
+        JAWTDrawingSurface surface = this.surface;
+        if (surface != null) {
+            this.surface = null;
+            JAWT_FreeDrawingSurface(surface, awt.FreeDrawingSurface());
+        }
+    }
+}
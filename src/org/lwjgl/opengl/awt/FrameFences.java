@@ -0,0 +1,145 @@
+package org.lwjgl.opengl.awt;
+
+import org.lwjgl.system.FunctionProvider;
+import org.lwjgl.system.JNI;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.lwjgl.opengl.GL32C.GL_SYNC_FLUSH_COMMANDS_BIT;
+import static org.lwjgl.opengl.GL32C.GL_SYNC_GPU_COMMANDS_COMPLETE;
+import static org.lwjgl.opengl.GL32C.GL_TIMEOUT_EXPIRED;
+import static org.lwjgl.opengl.GL32C.GL_WAIT_FAILED;
+import static org.lwjgl.opengl.awt.GLUtil.atLeast30;
+import static org.lwjgl.opengl.awt.GLUtil.atLeast32;
+
+/**
+ * Sync objects inserted after buffer swaps to bound how many frames the GPU may lag behind the CPU.
+ *
+ * <p>The functions are called through addresses that the platform resolves for the context's client API while the
+ * context is current, so they work regardless of which thread, if any, has installed {@code GLCapabilities}. All
+ * methods must be called with the owning canvas's lifecycle lock held.</p>
+ */
+final class FrameFences {
+    /** Bounds a single wait so that a lost GPU does not hang the render thread forever. */
+    private static final long WAIT_TIMEOUT_NANOS = TimeUnit.SECONDS.toNanos(1L);
+
+    private boolean resolved;
+    private long glFenceSync;
+    private long glClientWaitSync;
+    private long glDeleteSync;
+    /** Ring buffer of fences in insertion order. */
+    private long[] fences = new long[4];
+    private int first;
+    private int count;
+    private volatile long lastWaitNanos;
+    private volatile long totalWaitNanos;
+    private volatile long unsatisfiedWaits;
+
+    /**
+     * Inserts a fence after the commands of the frame that was just swapped. Does nothing if the context supports
+     * neither OpenGL 3.2 nor OpenGL ES 3.0.
+     */
+    void insert(GLData effective, PlatformGLCanvas platformCanvas) {
+        if (!resolve(effective, platformCanvas)) {
+            return;
+        }
+        long fence = JNI.callP(GL_SYNC_GPU_COMMANDS_COMPLETE, 0, glFenceSync);
+        if (fence == 0L) {
+            return;
+        }
+        if (count == fences.length) {
+            long[] grown = new long[fences.length * 2];
+            for (int i = 0; i < count; i++) {
+                grown[i] = fences[(first + i) % fences.length];
+            }
+            fences = grown;
+            first = 0;
+        }
+        fences[(first + count) % fences.length] = fence;
+        count++;
+    }
+
+    /**
+     * Waits until fewer than {@code maxFramesInFlight} swapped frames are still being processed by the GPU.
+     */
+    void await(int maxFramesInFlight) {
+        if (count < maxFramesInFlight || count == 0) {
+            lastWaitNanos = 0L;
+            return;
+        }
+        long start = System.nanoTime();
+        while (count >= maxFramesInFlight && count > 0) {
+            int status = JNI.callPJI(fences[first], GL_SYNC_FLUSH_COMMANDS_BIT, WAIT_TIMEOUT_NANOS, glClientWaitSync);
+            if (status == GL_TIMEOUT_EXPIRED || status == GL_WAIT_FAILED) {
+                unsatisfiedWaits++;
+            }
+            if (status == GL_TIMEOUT_EXPIRED) {
+                // The frame is still in flight, so keep its fence for the next frame instead of blocking longer.
+                break;
+            }
+            JNI.callPV(poll(), glDeleteSync);
+        }
+        long waited = System.nanoTime() - start;
+        lastWaitNanos = waited;
+        totalWaitNanos += waited;
+    }
+
+    /**
+     * Deletes all pending fences. The context must be current.
+     */
+    void deleteAll() {
+        while (count > 0) {
+            JNI.callPV(poll(), glDeleteSync);
+        }
+    }
+
+    /**
+     * Forgets pending fences and resolved functions after the context has been deleted.
+     */
+    void reset() {
+        first = 0;
+        count = 0;
+        resolved = false;
+        glFenceSync = 0L;
+        glClientWaitSync = 0L;
+        glDeleteSync = 0L;
+    }
+
+    long getLastWaitNanos() {
+        return lastWaitNanos;
+    }
+
+    long getTotalWaitNanos() {
+        return totalWaitNanos;
+    }
+
+    /**
+     * Returns how many waits timed out or failed before their frame had been processed.
+     */
+    long getUnsatisfiedWaits() {
+        return unsatisfiedWaits;
+    }
+
+    private long poll() {
+        long fence = fences[first];
+        first = (first + 1) % fences.length;
+        count--;
+        return fence;
+    }
+
+    private boolean resolve(GLData effective, PlatformGLCanvas platformCanvas) {
+        if (!resolved) {
+            resolved = true;
+            boolean supported = effective.api == GLData.API.GLES
+                    ? atLeast30(effective.majorVersion, effective.minorVersion)
+                    : atLeast32(effective.majorVersion, effective.minorVersion);
+            FunctionProvider functionProvider = supported ? platformCanvas.getFunctionProvider(effective) : null;
+            if (functionProvider != null) {
+                glFenceSync = functionProvider.getFunctionAddress("glFenceSync");
+                glClientWaitSync = functionProvider.getFunctionAddress("glClientWaitSync");
+                glDeleteSync = functionProvider.getFunctionAddress("glDeleteSync");
+            }
+        }
+        return glFenceSync != 0L && glClientWaitSync != 0L && glDeleteSync != 0L;
+    }
+}
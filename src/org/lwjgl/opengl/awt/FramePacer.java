@@ -0,0 +1,174 @@
+package org.lwjgl.opengl.awt;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Limits how often an {@link AWTGLCanvas} renders and measures what its frames cost.
+ *
+ * <p>When a target frame rate is set, {@link AWTGLCanvas#render()} waits before each frame until the frame's time slot
+ * begins. The wait sleeps for most of the remaining time and yields for the rest, where the sleep is shortened by the
+ * oversleep measured on earlier waits. This keeps frame start times accurate without occupying a core, which matters
+ * when buffer swaps do not block, for example without vsync or on software and remote X servers. A frame that starts
+ * late does not cause the following frames to be rendered in a burst.</p>
+ *
+ * <p>Independently of the target frame rate, the pacer keeps moving averages of the CPU time spent in
+ * {@link AWTGLCanvas#initGL()} and {@link AWTGLCanvas#paintGL()} and of the time spent in
+ * {@link AWTGLCanvas#swapBuffers()}. During a paced frame, {@link #getFrameDeadline()} and
+ * {@link #getRemainingFrameNanos()} tell callbacks how much of the frame's time slot is left.</p>
+ *
+ * <p>All times are in nanoseconds on the {@link System#nanoTime()} time base.</p>
+ */
+public final class FramePacer {
+    /** Weight of the newest sample in the moving averages. */
+    private static final double SMOOTHING = 0.1;
+    private static final long INITIAL_OVERSLEEP_NANOS = TimeUnit.MILLISECONDS.toNanos(1L);
+    private static final long MAX_OVERSLEEP_NANOS = TimeUnit.MILLISECONDS.toNanos(4L);
+
+    private volatile long targetFrameNanos;
+    private long nextFrameStart;
+    private volatile long frameDeadline;
+    private volatile long averageCpuNanos;
+    private volatile long averageSwapNanos;
+    private long swapNanosInFrame;
+    private volatile long oversleepNanos = INITIAL_OVERSLEEP_NANOS;
+
+    FramePacer() {
+    }
+
+    /**
+     * Sets the maximum number of frames per second, or {@code 0} to render without waiting.
+     *
+     * @throws IllegalArgumentException if {@code framesPerSecond} is negative or not finite
+     */
+    public void setTargetFrameRate(double framesPerSecond) {
+        if (!(framesPerSecond >= 0.0) || Double.isInfinite(framesPerSecond)) {
+            throw new IllegalArgumentException("Target frame rate must be a finite, non-negative number");
+        }
+        synchronized (this) {
+            targetFrameNanos = framesPerSecond == 0.0 ? 0L : (long) (TimeUnit.SECONDS.toNanos(1L) / framesPerSecond);
+            nextFrameStart = System.nanoTime();
+        }
+    }
+
+    /**
+     * Returns the target frame rate, or {@code 0} if frames are not paced.
+     */
+    public double getTargetFrameRate() {
+        long period = targetFrameNanos;
+        return period == 0L ? 0.0 : (double) TimeUnit.SECONDS.toNanos(1L) / period;
+    }
+
+    /**
+     * Returns the length of one frame's time slot, or {@code 0} if frames are not paced.
+     */
+    public long getTargetFrameNanos() {
+        return targetFrameNanos;
+    }
+
+    /**
+     * Returns the time by which the current or most recent paced frame should be finished, or {@code 0} if no paced
+     * frame has started.
+     */
+    public long getFrameDeadline() {
+        return frameDeadline;
+    }
+
+    /**
+     * Returns how much time is left until {@link #getFrameDeadline()}, which is negative once the deadline has passed
+     * and {@link Long#MAX_VALUE} if frames are not paced.
+     */
+    public long getRemainingFrameNanos() {
+        if (targetFrameNanos == 0L) {
+            return Long.MAX_VALUE;
+        }
+        return frameDeadline - System.nanoTime();
+    }
+
+    /**
+     * Returns the moving average of the CPU time spent in a frame's callbacks, excluding buffer swaps.
+     */
+    public long getAverageCpuNanos() {
+        return averageCpuNanos;
+    }
+
+    /**
+     * Returns the moving average of the time spent in {@link AWTGLCanvas#swapBuffers()} per frame.
+     */
+    public long getAverageSwapNanos() {
+        return averageSwapNanos;
+    }
+
+    /**
+     * Returns the moving average of the whole cost of a frame, which is the sum of its CPU and swap times.
+     */
+    public long getAverageFrameNanos() {
+        return averageCpuNanos + averageSwapNanos;
+    }
+
+    /**
+     * Waits until the next frame may start and returns its deadline. Returns immediately if frames are not paced or the
+     * calling thread is interrupted, in which case the interrupt status is preserved.
+     */
+    long awaitFrame() {
+        long start;
+        long period;
+        synchronized (this) {
+            period = targetFrameNanos;
+            if (period == 0L) {
+                return 0L;
+            }
+            long now = System.nanoTime();
+            start = nextFrameStart;
+            if (now - start > period) {
+                // Too late for this slot; start a new schedule instead of catching up.
+                start = now;
+            }
+            nextFrameStart = start + period;
+        }
+        waitUntil(start);
+        frameDeadline = start + period;
+        return start + period;
+    }
+
+    private void waitUntil(long time) {
+        while (!Thread.currentThread().isInterrupted()) {
+            long remaining = time - System.nanoTime();
+            if (remaining <= 0L) {
+                return;
+            }
+            long oversleep = oversleepNanos;
+            if (remaining > oversleep) {
+                long requested = remaining - oversleep;
+                long before = System.nanoTime();
+                LockSupport.parkNanos(this, requested);
+                long measured = System.nanoTime() - before - requested;
+                oversleepNanos = Math.min(MAX_OVERSLEEP_NANOS, Math.max(0L, average(oversleep, measured)));
+            } else {
+                Thread.yield();
+            }
+        }
+    }
+
+    void frameStarted() {
+        swapNanosInFrame = 0L;
+    }
+
+    void swapped(long nanos) {
+        swapNanosInFrame += nanos;
+    }
+
+    void frameRendered(long nanos) {
+        long swap = swapNanosInFrame;
+        swapNanosInFrame = 0L;
+        averageCpuNanos = average(averageCpuNanos, Math.max(0L, nanos - swap));
+        averageSwapNanos = average(averageSwapNanos, swap);
+    }
+
+    private static long average(long average, long sample) {
+        if (average == 0L) {
+            return sample;
+        }
+        return average + (long) ((sample - average) * SMOOTHING);
+    }
+}
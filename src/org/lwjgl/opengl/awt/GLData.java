@@ -163,6 +163,10 @@ public class GLData {
     public boolean pixelFormatFloat;
     /**
      * Specify the behavior on context switch. Defaults to <code>null</code> for "not specified".
+     * <p>
+     * {@link ReleaseBehavior#NONE} lets a context be released without an implicit flush. It requires
+     * <code>WGL_ARB_context_flush_control</code>, <code>GLX_ARB_context_flush_control</code> or
+     * <code>EGL_KHR_context_flush_control</code>.
      */
     public ReleaseBehavior contextReleaseBehavior;
     /**
@@ -190,5 +194,18 @@ public class GLData {
      * application in the system.
      */
     public boolean contextResetIsolation;
+    /**
+     * Whether to create a context without error checking, as described by KHR_no_error. Errors produce undefined
+     * behavior instead of being reported, which saves the driver's validation work. This cannot be combined with
+     * {@link #debug} or {@link #robustness}.
+     */
+    public boolean noError;
+    /**
+     * Whether to render on a private X display connection instead of the one AWT processes its events on. GLX and EGL
+     * calls, including buffer swaps, then no longer share a request queue with AWT. Contexts can only be shared between
+     * canvases that both use or both do not use a private connection. Requires libX11 1.8 or later, or a call to
+     * {@code XInitThreads} before AWT starts, and fails otherwise. Ignored on other platforms than X11.
+     */
+    public boolean privateDisplay;
 
 }
@@ -4,6 +4,8 @@ import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 
+import org.lwjgl.opengl.GL11;
+import org.lwjgl.opengl.KHRContextFlushControl;
 import org.lwjgl.opengl.awt.GLData.API;
 import org.lwjgl.opengl.awt.GLData.VersionPolicy;
 
@@ -73,7 +75,7 @@ class GLUtil {
         return api == API.GLES ? "OpenGL ES" : "OpenGL";
     }
 
-    private static int compare(int major, int minor, int otherMajor, int otherMinor) {
+    static int compare(int major, int minor, int otherMajor, int otherMinor) {
         int majorComparison = Integer.compare(major, otherMajor);
         return majorComparison != 0 ? majorComparison : Integer.compare(minor, otherMinor);
     }
@@ -147,6 +149,12 @@ class GLUtil {
         if (attribs.contextResetIsolation && !attribs.robustness) {
             throw new IllegalArgumentException("Context reset isolation requested but not using robustness");
         }
+        if (attribs.noError && attribs.debug) {
+            throw new IllegalArgumentException("No-error context requested together with a debug context");
+        }
+        if (attribs.noError && attribs.robustness) {
+            throw new IllegalArgumentException("No-error context requested together with robustness");
+        }
     }
 
     static void validateVersionAttributes(GLData attribs) {
@@ -181,6 +189,20 @@ class GLUtil {
         }
     }
 
+    /**
+     * Maps the value of {@code GL_CONTEXT_RELEASE_BEHAVIOR} of a current context to a {@link GLData.ReleaseBehavior},
+     * or returns {@code null} for an unknown value.
+     */
+    static GLData.ReleaseBehavior releaseBehavior(int value) {
+        if (value == KHRContextFlushControl.GL_CONTEXT_RELEASE_BEHAVIOR_FLUSH) {
+            return GLData.ReleaseBehavior.FLUSH;
+        }
+        if (value == GL11.GL_NONE) {
+            return GLData.ReleaseBehavior.NONE;
+        }
+        return null;
+    }
+
     static final class ContextVersion {
         final int major;
         final int minor;
@@ -52,6 +52,9 @@ final class MacOSXGLDataUtil {
         if (data.robustness) {
             throw new AWTException("macOS NSOpenGL robustness contexts are not supported");
         }
+        if (data.noError) {
+            throw new AWTException("macOS NSOpenGL no-error contexts are not supported");
+        }
         if (data.profile == GLData.Profile.COMPATIBILITY) {
             throw new AWTException("macOS NSOpenGL does not support compatibility profiles newer than OpenGL 2.1");
         }
@@ -1,5 +1,8 @@
 package org.lwjgl.opengl.awt;
 
+import org.lwjgl.opengl.GL;
+import org.lwjgl.system.FunctionProvider;
+
 import java.awt.AWTException;
 import java.awt.Canvas;
 
@@ -13,9 +16,48 @@ public interface PlatformGLCanvas {
     boolean deleteContext(long context);
     boolean makeCurrent(long context);
     boolean isCurrent(long context);
+
+    /**
+     * Returns whether {@code context} is current on the calling thread and still bound to this canvas's drawable.
+     *
+     * <p>This is called while the JAWT drawing surface is locked. {@link AWTGLCanvas} uses it to skip redundant
+     * {@link #makeCurrent(long)} calls when a render thread keeps the context current across frames. Implementations
+     * that must refresh drawable state on every activation should keep the default.</p>
+     *
+     * @param context the context handle returned by {@link #create(Canvas, GLData, GLData)}
+     * @return {@code true} only when calling {@link #makeCurrent(long)} would have no effect
+     */
+    default boolean isCurrentOnDrawable(long context) {
+        return false;
+    }
     boolean swapBuffers();
     boolean delayBeforeSwapNV(float seconds);
 
+    /**
+     * Returns whether OpenGL commands may be issued while the JAWT drawing surface is unlocked, as long as the lock is
+     * held around {@link #makeCurrent(long)}, {@link #getFramebufferSize(int[])} and {@link #swapBuffers()}. Only then
+     * can {@link AWTGLCanvas#setNarrowSurfaceLock(boolean)} take effect.
+     */
+    default boolean supportsUnlockedRendering() {
+        return false;
+    }
+
+    /**
+     * Returns the provider that resolves the functions of a context created with the {@code effective} attributes. This
+     * is called while the context is current.
+     */
+    default FunctionProvider getFunctionProvider(GLData effective) {
+        return GL.getFunctionProvider();
+    }
+
+    /**
+     * Returns how many context versions were tried when the last context was created by
+     * {@link #create(Canvas, GLData, GLData)}, or {@code 0} if the implementation does not report it.
+     */
+    default int getContextVersionAttempts() {
+        return 0;
+    }
+
     /**
      * Writes the current default-framebuffer width and height to {@code size}.
      *
@@ -30,13 +72,35 @@ public interface PlatformGLCanvas {
     }
 
     /**
-     * Acquires and locks a JAWT drawing surface for the current render operation.
+     * Tells an implementation that caches the size reported by {@link #getFramebufferSize(int[])} that the canvas may
+     * have been resized. This may be called on any thread.
+     */
+    default void invalidateFramebufferSize() {
+    }
+
+    /**
+     * Returns how many times {@link #getFramebufferSize(int[])} had to query the native window system, or {@code 0}
+     * if the implementation does not report it.
+     */
+    default long getFramebufferSizeQueries() {
+        return 0L;
+    }
+
+    /**
+     * Locks the JAWT drawing surface for the current render operation.
+     *
+     * <p>Implementations should get the drawing surface once per native peer, from {@link #create(Canvas, GLData, GLData)}
+     * until {@link #dispose()} or a peer change, and only lock it here, rather than getting a new surface for every
+     * frame.</p>
      */
     void lock() throws AWTException;
 
     /**
-     * Unlocks and frees the JAWT drawing surface acquired by {@link #lock()}.
+     * Unlocks the JAWT drawing surface locked by {@link #lock()}.
      * This must be called on the same thread as {@code lock()}.
+     *
+     * <p>This runs once per frame and must not free a drawing surface that outlives the lock; that surface is freed
+     * by {@link #dispose()} or when the native peer changes.</p>
      */
     void unlock() throws AWTException;
 
@@ -44,4 +108,44 @@ public interface PlatformGLCanvas {
      * Releases platform resources that outlive a drawing-surface lock cycle.
      */
     void dispose();
+
+    /**
+     * Prepares {@code context} to outlive the canvas's native peer, which is about to be destroyed.
+     *
+     * <p>This is called while the peer still exists, the drawing surface is not locked and the context is not current
+     * on any thread. On success, the platform releases every resource tied to the peer's window but keeps the context
+     * and its display connection, and a later {@link #reattach(long)} may bind the context to a new peer. Otherwise,
+     * the canvas disposes the context as usual.</p>
+     *
+     * @return {@code true} if the context was parked
+     */
+    default boolean park(long context) {
+        return false;
+    }
+
+    /**
+     * Makes a context parked by {@link #park(long)} current on the calling thread without a drawable, or releases it
+     * from the calling thread if {@code context} is {@code 0}. This lets {@link AWTGLCanvas#disposeGL()} delete the
+     * context's objects after the native peer is gone.
+     *
+     * <p>This is called while the drawing surface is not locked.</p>
+     *
+     * @return {@code true} if the context was made current or released; {@code false} if the platform cannot make it
+     *         current without a drawable
+     */
+    default boolean makeCurrentWithoutDrawable(long context) {
+        return false;
+    }
+
+    /**
+     * Binds a context parked by {@link #park(long)} to the canvas's new native peer.
+     *
+     * <p>This is called while the drawing surface is not locked. Implementations must verify that the new peer's
+     * window is compatible with the context's framebuffer configuration.</p>
+     *
+     * @return {@code true} if the context can be made current on the new peer; {@code false} if it must be deleted
+     */
+    default boolean reattach(long context) throws AWTException {
+        return false;
+    }
 }
@@ -11,9 +11,12 @@ import org.lwjgl.opengl.GL13;
 import org.lwjgl.opengl.GL30;
 import org.lwjgl.opengl.GL32;
 import org.lwjgl.opengl.GL43;
+import org.lwjgl.opengl.KHRContextFlushControl;
+import org.lwjgl.opengl.KHRNoError;
 import org.lwjgl.system.APIUtil;
 import org.lwjgl.system.APIUtil.APIVersion;
 import org.lwjgl.system.Checks;
+import org.lwjgl.system.FunctionProvider;
 import org.lwjgl.system.JNI;
 import org.lwjgl.system.MemoryStack;
 import org.lwjgl.system.MemoryUtil;
@@ -42,6 +45,7 @@ import static org.lwjgl.egl.EXTPlatformBase.eglGetPlatformDisplayEXT;
 import static org.lwjgl.egl.EXTPlatformX11.*;
 import static org.lwjgl.egl.KHRContextFlushControl.*;
 import static org.lwjgl.egl.KHRCreateContext.*;
+import static org.lwjgl.egl.KHRCreateContextNoError.*;
 import static org.lwjgl.egl.KHRGLColorspace.*;
 import static org.lwjgl.egl.KHRPlatformX11.*;
 import static org.lwjgl.system.MemoryUtil.*;
@@ -53,14 +57,35 @@ import static org.lwjgl.system.jawt.JAWTFunctions.*;
 public class PlatformLinuxEGLCanvas implements PlatformGLCanvas {
     private static final JAWT AWT = createAWT();
     private static final Map<Long, DisplayRef> DISPLAY_REFS = new HashMap<>();
+    static final ConfigCache<ConfigChoice> CONFIGS = new ConfigCache<>();
+    static final ContextVersionMemo CONTEXT_VERSIONS = new ContextVersionMemo();
 
     private Canvas canvas;
     private JAWTDrawingSurface ds;
+    private final DrawingSurface drawingSurface = new DrawingSurface(AWT);
     private Thread drawingSurfaceThread;
     private DisplayRef displayRef;
     private long eglDisplay;
     private long eglSurface;
     private long eglContext;
+    private long eglConfig;
+    /** A 1x1 pbuffer that a parked context is bound to if the display does not support surfaceless contexts. */
+    private long pbufferSurface = EGL_NO_SURFACE;
+    /** The display connection of AWT, which windows of a reattached peer must be on as well. */
+    private long nativeDisplay;
+    /** The connection EGL calls are made on, which is AWT's own unless {@link GLData#privateDisplay} was requested. */
+    private long connection;
+    private long visualID;
+    /** The requested attributes, kept to create a window surface for a reattached peer. */
+    private GLData surfaceData;
+    /** Whether the requested swap interval must be applied to a new surface on the next activation. */
+    private boolean swapIntervalPending;
+    private int contextVersionAttempts;
+    /** Whether {@link #surfaceWidth} and {@link #surfaceHeight} are current. Cleared when the size may change. */
+    private volatile boolean surfaceSizeValid;
+    private int surfaceWidth;
+    private int surfaceHeight;
+    private volatile long framebufferSizeQueries;
 
     private static JAWT createAWT() {
         JAWT awt = JAWT.create(MemoryUtil.getAllocator().calloc(1, JAWT.SIZEOF)); // untracked allocation
@@ -76,40 +101,132 @@ public class PlatformLinuxEGLCanvas implements PlatformGLCanvas {
         GLUtil.validateAttributes(attribs);
         validateUnsupportedAttributes(attribs);
         this.canvas = canvas;
+        return withX11DrawingSurfaceInfo(x11 -> createContext(x11.display(), x11.drawable(), x11.visualID(),
+                attribs, effective));
+    }
+
+    /**
+     * Destroys the window surface of the peer that is about to be destroyed but keeps the context and the EGL display
+     * reference, so that the context can be bound to a surface for the next peer.
+     */
+    @Override
+    public boolean park(long context) {
+        if (eglDisplay == EGL_NO_DISPLAY || context == EGL_NO_CONTEXT || context != eglContext) {
+            return false;
+        }
+        if (eglSurface != EGL_NO_SURFACE) {
+            eglDestroySurface(eglDisplay, eglSurface);
+            eglSurface = EGL_NO_SURFACE;
+        }
+        drawingSurface.release();
+        return true;
+    }
+
+    @Override
+    public boolean reattach(long context) throws AWTException {
+        if (canvas == null) {
+            throw new AWTException("Canvas has not been created or was disposed");
+        }
+        return withX11DrawingSurfaceInfo(x11 -> {
+            // The context's EGL config was chosen to match the previous window's visual.
+            if (x11.display() != nativeDisplay || x11.visualID() != visualID) {
+                return false;
+            }
+            if (surfaceData.privateDisplay) {
+                // Makes the new window known to the server before it is used on the private connection.
+                PrivateXDisplays.connect(nativeDisplay);
+            }
+            long surface = createWindowSurface(eglConfig, x11.drawable(), surfaceData);
+            if (surface == EGL_NO_SURFACE) {
+                throw eglFailure("Failed to create EGL window surface");
+            }
+            eglSurface = surface;
+            surfaceSizeValid = false;
+            swapIntervalPending = surfaceData.swapInterval != null;
+            return true;
+        });
+    }
 
-        JAWTDrawingSurface drawingSurface = JAWT_GetDrawingSurface(canvas, AWT.GetDrawingSurface());
-        if (drawingSurface == null) {
-            throw new AWTException("Failed to get JAWT drawing surface");
+    /**
+     * Binds the context without a surface if EGL_KHR_surfaceless_context allows it, and to a 1x1 pbuffer otherwise.
+     * AWT's toolkit lock is taken instead of the drawing surface lock because there is no peer.
+     */
+    @Override
+    public boolean makeCurrentWithoutDrawable(long context) {
+        if (eglDisplay == EGL_NO_DISPLAY) {
+            return context == EGL_NO_CONTEXT;
+        }
+        if (context != EGL_NO_CONTEXT && context != eglContext) {
+            return false;
         }
+        JAWT_Lock(AWT.Lock());
         try {
-            int lock = JAWT_DrawingSurface_Lock(drawingSurface, drawingSurface.Lock());
-            if ((lock & JAWT_LOCK_ERROR) != 0) {
-                throw new AWTException("JAWT_DrawingSurface_Lock() failed");
+            if (context == EGL_NO_CONTEXT) {
+                boolean released = eglMakeCurrent(eglDisplay, EGL_NO_SURFACE, EGL_NO_SURFACE, EGL_NO_CONTEXT);
+                destroyPbufferSurface();
+                return released;
+            }
+            if (displayRef.capabilities.EGL_KHR_surfaceless_context
+                    && eglMakeCurrent(eglDisplay, EGL_NO_SURFACE, EGL_NO_SURFACE, context)) {
+                return true;
+            }
+            // OpenGL ES contexts additionally require GL_OES_surfaceless_context.
+            eglGetError();
+            try (MemoryStack stack = MemoryStack.stackPush()) {
+                pbufferSurface = eglCreatePbufferSurface(eglDisplay, eglConfig,
+                        stack.ints(EGL_WIDTH, 1, EGL_HEIGHT, 1, EGL_NONE));
+            }
+            if (pbufferSurface == EGL_NO_SURFACE) {
+                // The configuration does not support pbuffers.
+                eglGetError();
+                return false;
+            }
+            if (!eglMakeCurrent(eglDisplay, pbufferSurface, pbufferSurface, context)) {
+                eglGetError();
+                destroyPbufferSurface();
+                return false;
+            }
+            return true;
+        } finally {
+            JAWT_Unlock(AWT.Unlock());
+        }
+    }
+
+    private void destroyPbufferSurface() {
+        if (pbufferSurface != EGL_NO_SURFACE) {
+            eglDestroySurface(eglDisplay, pbufferSurface);
+            pbufferSurface = EGL_NO_SURFACE;
+        }
+    }
+
+    private interface X11DrawingSurfaceInfoFunction<T> {
+        T apply(JAWTX11DrawingSurfaceInfo x11) throws AWTException;
+    }
+
+    private <T> T withX11DrawingSurfaceInfo(X11DrawingSurfaceInfoFunction<T> function) throws AWTException {
+        drawingSurface.lock(canvas);
+        try {
+            JAWTDrawingSurface surface = drawingSurface.get();
+            JAWTDrawingSurfaceInfo dsi = JAWT_DrawingSurface_GetDrawingSurfaceInfo(
+                    surface, surface.GetDrawingSurfaceInfo());
+            if (dsi == null) {
+                throw new AWTException("Failed to get JAWT drawing surface information");
             }
             try {
-                JAWTDrawingSurfaceInfo dsi = JAWT_DrawingSurface_GetDrawingSurfaceInfo(
-                        drawingSurface, drawingSurface.GetDrawingSurfaceInfo());
-                if (dsi == null) {
-                    throw new AWTException("Failed to get JAWT drawing surface information");
-                }
-                try {
-                    JAWTX11DrawingSurfaceInfo x11 = JAWTX11DrawingSurfaceInfo.create(dsi.platformInfo());
-                    return createContext(x11.display(), x11.drawable(), x11.visualID(), attribs, effective);
-                } finally {
-                    JAWT_DrawingSurface_FreeDrawingSurfaceInfo(dsi, drawingSurface.FreeDrawingSurfaceInfo());
-                }
+                return function.apply(JAWTX11DrawingSurfaceInfo.create(dsi.platformInfo()));
             } finally {
-                JAWT_DrawingSurface_Unlock(drawingSurface, drawingSurface.Unlock());
+                JAWT_DrawingSurface_FreeDrawingSurfaceInfo(dsi, surface.FreeDrawingSurfaceInfo());
             }
         } finally {
-            JAWT_FreeDrawingSurface(drawingSurface, AWT.FreeDrawingSurface());
+            drawingSurface.unlock();
         }
     }
 
     private long createContext(long nativeDisplay, long drawable, long visualID,
             GLData attribs, GLData effective) throws AWTException {
-        int screen = org.lwjgl.system.linux.X11.XDefaultScreen(nativeDisplay);
-        displayRef = acquireDisplay(nativeDisplay, screen);
+        connection = attribs.privateDisplay ? PrivateXDisplays.connect(nativeDisplay) : nativeDisplay;
+        int screen = org.lwjgl.system.linux.X11.XDefaultScreen(connection);
+        displayRef = acquireDisplay(connection, screen);
         eglDisplay = displayRef.eglDisplay;
 
         try {
@@ -120,40 +237,57 @@ public class PlatformLinuxEGLCanvas implements PlatformGLCanvas {
             List<GLUtil.ContextVersion> candidates = GLUtil.contextVersionCandidates(attribs,
                     attribs.api == GLData.API.GLES ? 3 : 4,
                     attribs.api == GLData.API.GLES ? 2 : 6);
-            long config = 0L;
-            int lastError = EGL_SUCCESS;
-            for (GLUtil.ContextVersion version : candidates) {
-                long candidateConfig = chooseConfig(visualID, attribs, version);
-                if (candidateConfig == 0L) {
-                    if (attribs.versionPolicy == GLData.VersionPolicy.EXACT) {
-                        throw new AWTException("No EGL framebuffer configuration matches the AWT window visual");
-                    }
-                    continue;
-                }
-                eglContext = eglCreateContext(eglDisplay, candidateConfig, shareContext,
-                        contextAttributes(attribs, displayRef.capabilities, version));
-                if (eglContext != EGL_NO_CONTEXT) {
-                    config = candidateConfig;
-                    break;
-                }
-                lastError = eglGetError();
-                if (attribs.versionPolicy == GLData.VersionPolicy.EXACT) {
-                    throw eglFailure("Failed to create EGL context", lastError);
-                }
-            }
+            int[] lastError = {EGL_SUCCESS};
+            GLUtil.ContextVersion preferred = CONTEXT_VERSIONS.preferred(eglDisplay, displayRef.driver, attribs,
+                    candidates);
+            ContextVersionProbe probe = ContextVersionProbe.probe(candidates, preferred,
+                    created -> {
+                        // Cached while probing.
+                        ConfigChoice preferredConfig = chooseConfig(screen, visualID, attribs, preferred);
+                        return CONTEXT_VERSIONS.isPreferredVerified(eglDisplay, displayRef.driver, attribs,
+                                () -> renderer(created, preferredConfig, drawable, attribs));
+                    },
+                    version -> {
+                        ConfigChoice candidateConfig = chooseConfig(screen, visualID, attribs, version);
+                        if (candidateConfig.config == 0L) {
+                            if (attribs.versionPolicy == GLData.VersionPolicy.EXACT) {
+                                throw new AWTException("No EGL framebuffer configuration matches the AWT window visual");
+                            }
+                            return EGL_NO_CONTEXT;
+                        }
+                        long created = eglCreateContext(eglDisplay, candidateConfig.config, shareContext,
+                                contextAttributes(attribs, displayRef.capabilities, version));
+                        if (created == EGL_NO_CONTEXT) {
+                            lastError[0] = eglGetError();
+                            if (attribs.versionPolicy == GLData.VersionPolicy.EXACT) {
+                                throw eglFailure("Failed to create EGL context", lastError[0]);
+                            }
+                        }
+                        return created;
+                    },
+                    created -> eglDestroyContext(eglDisplay, created));
+            contextVersionAttempts = probe.attempts;
+            eglContext = probe.context;
             if (eglContext == EGL_NO_CONTEXT) {
                 String message = "Failed to create an EGL context satisfying "
-                        + GLUtil.describeVersionRequest(attribs) + " after " + candidates.size() + " attempts";
-                if (lastError != EGL_SUCCESS) {
-                    throw eglFailure(message, lastError);
+                        + GLUtil.describeVersionRequest(attribs) + " after " + probe.attempts + " attempts";
+                if (lastError[0] != EGL_SUCCESS) {
+                    throw eglFailure(message, lastError[0]);
                 }
                 throw new AWTException(message);
             }
+            // Cached while probing.
+            ConfigChoice config = chooseConfig(screen, visualID, attribs, probe.version);
 
-            eglSurface = createWindowSurface(config, drawable, attribs);
+            eglSurface = createWindowSurface(config.config, drawable, attribs);
+            surfaceSizeValid = false;
             if (eglSurface == EGL_NO_SURFACE) {
                 throw eglFailure("Failed to create EGL window surface");
             }
+            this.eglConfig = config.config;
+            this.nativeDisplay = nativeDisplay;
+            this.visualID = visualID;
+            this.surfaceData = attribs;
 
             if (!eglMakeCurrent(eglDisplay, eglSurface, eglSurface, eglContext)) {
                 throw eglFailure("Failed to make EGL context current");
@@ -165,8 +299,11 @@ public class PlatformLinuxEGLCanvas implements PlatformGLCanvas {
                     }
                     effective.swapInterval = attribs.swapInterval;
                 }
+                effective.privateDisplay = attribs.privateDisplay;
                 populateEffectiveConfig(config, attribs, effective);
                 populateEffectiveGLAttributes(attribs, effective);
+                CONTEXT_VERSIONS.succeeded(eglDisplay, displayRef.driver, attribs, probe.version,
+                        PlatformLinuxEGLCanvas::renderer);
             } finally {
                 eglMakeCurrent(eglDisplay, EGL_NO_SURFACE, EGL_NO_SURFACE, EGL_NO_CONTEXT);
             }
@@ -218,6 +355,9 @@ public class PlatformLinuxEGLCanvas implements PlatformGLCanvas {
         if (data.robustness && !createContext && !capabilities.EGL_EXT_create_context_robustness) {
             throw new AWTException("Robust contexts require EGL_KHR_create_context or EGL_EXT_create_context_robustness");
         }
+        if (data.noError && !capabilities.EGL_KHR_create_context_no_error) {
+            throw new AWTException("No-error contexts require EGL_KHR_create_context_no_error");
+        }
         if (data.contextReleaseBehavior != null && !capabilities.EGL_KHR_context_flush_control) {
             throw new AWTException("Context release behavior requires EGL_KHR_context_flush_control");
         }
@@ -229,10 +369,36 @@ public class PlatformLinuxEGLCanvas implements PlatformGLCanvas {
         }
     }
 
-    private long chooseConfig(long visualID, GLData data, GLUtil.ContextVersion version) throws AWTException {
+    /**
+     * The result of choosing a configuration for a window visual. Configurations belong to their display, which is
+     * never terminated, so the handle remains valid for the lifetime of the process.
+     */
+    static final class ConfigChoice {
+        static final ConfigChoice NO_MATCH = new ConfigChoice(0L, null);
+
+        /** The chosen configuration, or {@code 0} if none matches. */
+        final long config;
+        /** The framebuffer attributes of {@link #config}, or {@code null} if none matches. */
+        final GLData effective;
+
+        ConfigChoice(long config, GLData effective) {
+            this.config = config;
+            this.effective = effective;
+        }
+    }
+
+    private ConfigChoice chooseConfig(int screen, long visualID, GLData data, GLUtil.ContextVersion version)
+            throws AWTException {
+        // Only the renderable type depends on the version, so candidates sharing it share the cached choice.
+        int renderableType = renderableType(data, version);
+        ConfigCache.Key key = ConfigCache.key(eglDisplay, screen, visualID, data, renderableType);
+        ConfigChoice cached = CONFIGS.get(key);
+        if (cached != null) {
+            return cached;
+        }
         IntBuffer attributes = BufferUtils.createIntBuffer(40);
         attributes.put(EGL_SURFACE_TYPE).put(EGL_WINDOW_BIT);
-        attributes.put(EGL_RENDERABLE_TYPE).put(renderableType(data, version));
+        attributes.put(EGL_RENDERABLE_TYPE).put(renderableType);
         attributes.put(EGL_NATIVE_VISUAL_ID).put((int) visualID);
         attributes.put(EGL_RED_SIZE).put(data.redSize);
         attributes.put(EGL_GREEN_SIZE).put(data.greenSize);
@@ -253,9 +419,20 @@ public class PlatformLinuxEGLCanvas implements PlatformGLCanvas {
             throw eglFailure("Failed to choose EGL framebuffer configuration");
         }
         if (count.get(0) == 0) {
-            return 0L;
-        }
-        return configs.get(0);
+            // Not cached, like every other failure.
+            return ConfigChoice.NO_MATCH;
+        }
+        long config = configs.get(0);
+        GLData configAttributes = new GLData();
+        configAttributes.redSize = getConfigAttribute(config, EGL_RED_SIZE);
+        configAttributes.greenSize = getConfigAttribute(config, EGL_GREEN_SIZE);
+        configAttributes.blueSize = getConfigAttribute(config, EGL_BLUE_SIZE);
+        configAttributes.alphaSize = getConfigAttribute(config, EGL_ALPHA_SIZE);
+        configAttributes.depthSize = getConfigAttribute(config, EGL_DEPTH_SIZE);
+        configAttributes.stencilSize = getConfigAttribute(config, EGL_STENCIL_SIZE);
+        configAttributes.samples = getConfigAttribute(config, EGL_SAMPLES);
+        configAttributes.sampleBuffers = getConfigAttribute(config, EGL_SAMPLE_BUFFERS);
+        return CONFIGS.putIfAbsent(key, new ConfigChoice(config, configAttributes));
     }
 
     private static int renderableType(GLData data, GLUtil.ContextVersion version) {
@@ -286,6 +463,9 @@ public class PlatformLinuxEGLCanvas implements PlatformGLCanvas {
             throw new AWTException("Cannot share an EGL context with a different platform backend");
         }
         PlatformLinuxEGLCanvas shared = (PlatformLinuxEGLCanvas) data.shareContext.platformCanvas;
+        if (shared.connection != connection) {
+            throw new AWTException("Shared EGL contexts must use the same X display connection");
+        }
         if (shared.eglDisplay != eglDisplay) {
             throw new AWTException("Shared EGL contexts must use the same EGL display");
         }
@@ -340,6 +520,9 @@ public class PlatformLinuxEGLCanvas implements PlatformGLCanvas {
             }
         }
 
+        if (data.noError) {
+            attributes.put(EGL_CONTEXT_OPENGL_NO_ERROR_KHR).put(EGL_TRUE);
+        }
         if (data.contextReleaseBehavior != null) {
             attributes.put(EGL_CONTEXT_RELEASE_BEHAVIOR_KHR)
                     .put(data.contextReleaseBehavior == GLData.ReleaseBehavior.NONE
@@ -393,16 +576,15 @@ public class PlatformLinuxEGLCanvas implements PlatformGLCanvas {
         return attributes.put(EGL_NONE).flip();
     }
 
-    private void populateEffectiveConfig(long config, GLData requested, GLData effective)
-            throws AWTException {
-        effective.redSize = getConfigAttribute(config, EGL_RED_SIZE);
-        effective.greenSize = getConfigAttribute(config, EGL_GREEN_SIZE);
-        effective.blueSize = getConfigAttribute(config, EGL_BLUE_SIZE);
-        effective.alphaSize = getConfigAttribute(config, EGL_ALPHA_SIZE);
-        effective.depthSize = getConfigAttribute(config, EGL_DEPTH_SIZE);
-        effective.stencilSize = getConfigAttribute(config, EGL_STENCIL_SIZE);
-        effective.samples = getConfigAttribute(config, EGL_SAMPLES);
-        effective.sampleBuffers = getConfigAttribute(config, EGL_SAMPLE_BUFFERS);
+    private void populateEffectiveConfig(ConfigChoice config, GLData requested, GLData effective) {
+        effective.redSize = config.effective.redSize;
+        effective.greenSize = config.effective.greenSize;
+        effective.blueSize = config.effective.blueSize;
+        effective.alphaSize = config.effective.alphaSize;
+        effective.depthSize = config.effective.depthSize;
+        effective.stencilSize = config.effective.stencilSize;
+        effective.samples = config.effective.samples;
+        effective.sampleBuffers = config.effective.sampleBuffers;
         effective.pixelFormatFloat = requested.pixelFormatFloat;
         effective.sRGB = requested.sRGB;
 
@@ -452,6 +634,11 @@ public class PlatformLinuxEGLCanvas implements PlatformGLCanvas {
                     (contextFlags & GL30.GL_CONTEXT_FLAG_FORWARD_COMPATIBLE_BIT) != 0;
             effective.robustness =
                     (contextFlags & ARBRobustness.GL_CONTEXT_FLAG_ROBUST_ACCESS_BIT_ARB) != 0;
+            effective.noError = (contextFlags & KHRNoError.GL_CONTEXT_FLAG_NO_ERROR_BIT_KHR) != 0;
+        } else if (requested.api == GLData.API.GLES && GLUtil.atLeast32(version.major, version.minor)) {
+            // OpenGL ES exposes the context flags from version 3.2 on.
+            int contextFlags = getInteger(GL30.GL_CONTEXT_FLAGS, glGetIntegerv);
+            effective.noError = (contextFlags & KHRNoError.GL_CONTEXT_FLAG_NO_ERROR_BIT_KHR) != 0;
         }
         if (effective.robustness) {
             int notificationStrategy = getInteger(
@@ -461,7 +648,48 @@ public class PlatformLinuxEGLCanvas implements PlatformGLCanvas {
         }
         effective.samples = getInteger(GL13.GL_SAMPLES, glGetIntegerv);
         effective.sampleBuffers = effective.samples > 0 ? 1 : 0;
-        effective.contextReleaseBehavior = requested.contextReleaseBehavior;
+        // The query is only valid if the implementation supports flush control, which was verified when it was requested.
+        if (requested.contextReleaseBehavior != null) {
+            effective.contextReleaseBehavior = GLUtil.releaseBehavior(
+                    getInteger(KHRContextFlushControl.GL_CONTEXT_RELEASE_BEHAVIOR, glGetIntegerv));
+        }
+    }
+
+    @Override
+    public FunctionProvider getFunctionProvider(GLData effective) {
+        // The desktop OpenGL library does not export OpenGL ES entry points, but eglGetProcAddress resolves them.
+        return effective.api == GLData.API.GLES ? EGL.getFunctionProvider() : GL.getFunctionProvider();
+    }
+
+    /**
+     * Returns the {@code GL_RENDERER} and {@code GL_VERSION} of a context created while probing, or {@code null} if it
+     * cannot be made current. The window surface is only created for the query, because the chosen configuration is not
+     * known yet.
+     */
+    private String renderer(long context, ConfigChoice config, long drawable, GLData data) {
+        long surface = config.config != 0L ? createWindowSurface(config.config, drawable, data) : EGL_NO_SURFACE;
+        if (surface == EGL_NO_SURFACE) {
+            eglGetError();
+            return null;
+        }
+        try {
+            if (!eglMakeCurrent(eglDisplay, surface, surface, context)) {
+                eglGetError();
+                return null;
+            }
+            try {
+                return renderer();
+            } finally {
+                eglMakeCurrent(eglDisplay, EGL_NO_SURFACE, EGL_NO_SURFACE, EGL_NO_CONTEXT);
+            }
+        } finally {
+            eglDestroySurface(eglDisplay, surface);
+        }
+    }
+
+    private static String renderer() {
+        long glGetString = GL.getFunctionProvider().getFunctionAddress("glGetString");
+        return getString(GL11.GL_RENDERER, glGetString) + " " + getString(GL11.GL_VERSION, glGetString);
     }
 
     private static int getInteger(int name, long function) {
@@ -484,23 +712,17 @@ public class PlatformLinuxEGLCanvas implements PlatformGLCanvas {
         if (canvas == null) {
             throw new AWTException("Canvas has not been created or was disposed");
         }
-        JAWTDrawingSurface drawingSurface = JAWT_GetDrawingSurface(canvas, AWT.GetDrawingSurface());
-        if (drawingSurface == null) {
-            throw new AWTException("Failed to get JAWT drawing surface");
+        int lock = drawingSurface.lock(canvas);
+        if ((lock & (JAWT_LOCK_BOUNDS_CHANGED | JAWT_LOCK_SURFACE_CHANGED)) != 0) {
+            surfaceSizeValid = false;
         }
-        int lock = JAWT_DrawingSurface_Lock(drawingSurface, drawingSurface.Lock());
-        if ((lock & JAWT_LOCK_ERROR) != 0) {
-            JAWT_FreeDrawingSurface(drawingSurface, AWT.FreeDrawingSurface());
-            throw new AWTException("JAWT_DrawingSurface_Lock() failed");
-        }
-        ds = drawingSurface;
+        ds = drawingSurface.get();
         drawingSurfaceThread = Thread.currentThread();
     }
 
     @Override
     public void unlock() throws AWTException {
-        JAWTDrawingSurface drawingSurface = ds;
-        if (drawingSurface == null) {
+        if (ds == null) {
             throw new AWTException("JAWT drawing surface is not locked");
         }
         if (drawingSurfaceThread != Thread.currentThread()) {
@@ -508,11 +730,7 @@ public class PlatformLinuxEGLCanvas implements PlatformGLCanvas {
         }
         ds = null;
         drawingSurfaceThread = null;
-        try {
-            JAWT_DrawingSurface_Unlock(drawingSurface, drawingSurface.Unlock());
-        } finally {
-            JAWT_FreeDrawingSurface(drawingSurface, AWT.FreeDrawingSurface());
-        }
+        drawingSurface.unlock();
     }
 
     @Override
@@ -524,7 +742,18 @@ public class PlatformLinuxEGLCanvas implements PlatformGLCanvas {
         if (context == EGL_NO_CONTEXT) {
             return eglMakeCurrent(eglDisplay, EGL_NO_SURFACE, EGL_NO_SURFACE, EGL_NO_CONTEXT);
         }
-        return eglMakeCurrent(eglDisplay, eglSurface, eglSurface, context);
+        if (!eglMakeCurrent(eglDisplay, eglSurface, eglSurface, context)) {
+            return false;
+        }
+        if (swapIntervalPending) {
+            // The swap interval applies to the surface bound at the time of the call, so configure the new surface.
+            swapIntervalPending = false;
+            if (!eglSwapInterval(eglDisplay, surfaceData.swapInterval)) {
+                throw new IllegalStateException("Failed to configure the swap interval of the reattached surface",
+                        eglFailure("eglSwapInterval() failed"));
+            }
+        }
+        return true;
     }
 
     private void requireLockedDrawingSurface() {
@@ -541,11 +770,42 @@ public class PlatformLinuxEGLCanvas implements PlatformGLCanvas {
         return eglGetCurrentContext() == context;
     }
 
+    @Override
+    public boolean isCurrentOnDrawable(long context) {
+        return context != EGL_NO_CONTEXT && eglSurface != EGL_NO_SURFACE
+                && eglGetCurrentContext() == context
+                && eglGetCurrentSurface(EGL_DRAW) == eglSurface
+                && eglGetCurrentDisplay() == eglDisplay;
+    }
+
     @Override
     public boolean swapBuffers() {
         return eglSwapBuffers(eglDisplay, eglSurface);
     }
 
+    @Override
+    public int getContextVersionAttempts() {
+        return contextVersionAttempts;
+    }
+
+    /**
+     * The EGL window surface stays valid while the drawing surface is unlocked, so only binding and swapping need it.
+     */
+    @Override
+    public boolean supportsUnlockedRendering() {
+        return true;
+    }
+
+    @Override
+    public void invalidateFramebufferSize() {
+        surfaceSizeValid = false;
+    }
+
+    @Override
+    public long getFramebufferSizeQueries() {
+        return framebufferSizeQueries;
+    }
+
     @Override
     public boolean delayBeforeSwapNV(float seconds) {
         throw new UnsupportedOperationException("NYI");
@@ -556,18 +816,31 @@ public class PlatformLinuxEGLCanvas implements PlatformGLCanvas {
         if (eglDisplay == EGL_NO_DISPLAY || eglSurface == EGL_NO_SURFACE) {
             return false;
         }
+        if (surfaceSizeValid) {
+            size[0] = surfaceWidth;
+            size[1] = surfaceHeight;
+            return true;
+        }
+        // The size is kept until the canvas may have been resized. The flag is set before the query so that an
+        // invalidation during the query is not lost.
+        surfaceSizeValid = true;
+        framebufferSizeQueries++;
+        // The values are read from raw stack memory instead of buffer instances to keep the frame allocation-free.
         try (MemoryStack stack = MemoryStack.stackPush()) {
-            IntBuffer width = stack.mallocInt(1);
-            IntBuffer height = stack.mallocInt(1);
-            if (!eglQuerySurface(eglDisplay, eglSurface, EGL_WIDTH, width)
-                    || !eglQuerySurface(eglDisplay, eglSurface, EGL_HEIGHT, height)) {
+            long width = stack.nmalloc(4, 4);
+            long height = stack.nmalloc(4, 4);
+            if (neglQuerySurface(eglDisplay, eglSurface, EGL_WIDTH, width) == EGL_FALSE
+                    || neglQuerySurface(eglDisplay, eglSurface, EGL_HEIGHT, height) == EGL_FALSE) {
                 eglGetError();
+                surfaceSizeValid = false;
                 return false;
             }
-            size[0] = width.get(0);
-            size[1] = height.get(0);
-            return true;
+            size[0] = memGetInt(width);
+            size[1] = memGetInt(height);
         }
+        surfaceWidth = size[0];
+        surfaceHeight = size[1];
+        return true;
     }
 
     @Override
@@ -581,6 +854,7 @@ public class PlatformLinuxEGLCanvas implements PlatformGLCanvas {
             if (eglSurface != EGL_NO_SURFACE) {
                 success &= eglDestroySurface(eglDisplay, eglSurface);
             }
+            destroyPbufferSurface();
             if (context != EGL_NO_CONTEXT) {
                 success &= eglDestroyContext(eglDisplay, context);
             }
@@ -617,6 +891,7 @@ public class PlatformLinuxEGLCanvas implements PlatformGLCanvas {
 
     @Override
     public void dispose() {
+        drawingSurface.release();
         canvas = null;
     }
 
@@ -624,7 +899,7 @@ public class PlatformLinuxEGLCanvas implements PlatformGLCanvas {
             throws AWTException {
         long eglDisplay = createDisplay(nativeDisplay, screen);
         if (eglDisplay == EGL_NO_DISPLAY) {
-            throw eglFailure("Failed to obtain EGL display for the AWT X11 display");
+            throw eglFailure("Failed to obtain EGL display for the X11 display");
         }
 
         DisplayRef existing = DISPLAY_REFS.get(eglDisplay);
@@ -641,7 +916,8 @@ public class PlatformLinuxEGLCanvas implements PlatformGLCanvas {
             }
             EGLCapabilities capabilities = EGL.createDisplayCapabilities(
                     eglDisplay, major.get(0), minor.get(0));
-            DisplayRef created = new DisplayRef(eglDisplay, capabilities);
+            String driver = eglQueryString(eglDisplay, EGL_VENDOR) + " " + eglQueryString(eglDisplay, EGL_VERSION);
+            DisplayRef created = new DisplayRef(eglDisplay, capabilities, driver);
             DISPLAY_REFS.put(eglDisplay, created);
             return created;
         }
@@ -722,11 +998,14 @@ public class PlatformLinuxEGLCanvas implements PlatformGLCanvas {
     private static final class DisplayRef {
         private final long eglDisplay;
         private final EGLCapabilities capabilities;
+        /** Identifies the EGL implementation that creates contexts on this display. */
+        private final String driver;
         private int references = 1;
 
-        private DisplayRef(long eglDisplay, EGLCapabilities capabilities) {
+        private DisplayRef(long eglDisplay, EGLCapabilities capabilities, String driver) {
             this.eglDisplay = eglDisplay;
             this.capabilities = capabilities;
+            this.driver = driver;
         }
     }
 }
@@ -3,10 +3,13 @@ package org.lwjgl.opengl.awt;
 import static org.lwjgl.system.jawt.JAWTFunctions.*;
 import static org.lwjgl.system.MemoryUtil.*;
 import static org.lwjgl.opengl.GLX.*;
+import static org.lwjgl.opengl.GLX12.glXGetCurrentDisplay;
 import static org.lwjgl.opengl.GLX13.*;
 import static org.lwjgl.opengl.GLX14.GLX_SAMPLE_BUFFERS;
 import static org.lwjgl.opengl.GLX14.GLX_SAMPLES;
+import static org.lwjgl.opengl.GLXARBContextFlushControl.*;
 import static org.lwjgl.opengl.GLXARBCreateContext.*;
+import static org.lwjgl.opengl.GLXARBCreateContextNoError.*;
 import static org.lwjgl.opengl.GLXARBCreateContextProfile.*;
 import static org.lwjgl.opengl.GLXARBCreateContextRobustness.*;
 import static org.lwjgl.opengl.GLXARBRobustnessApplicationIsolation.*;
@@ -14,8 +17,8 @@ import static org.lwjgl.opengl.GLXEXTCreateContextESProfile.*;
 
 import java.awt.AWTException;
 import java.awt.Canvas;
-import java.nio.ByteBuffer;
 import java.nio.IntBuffer;
+import java.util.Collections;
 import java.util.List;
 import java.util.Objects;
 import java.util.Set;
@@ -29,10 +32,10 @@ import org.lwjgl.opengl.GL13;
 import org.lwjgl.opengl.GL30;
 import org.lwjgl.opengl.GL32;
 import org.lwjgl.opengl.GL43;
+import org.lwjgl.opengl.KHRContextFlushControl;
+import org.lwjgl.opengl.KHRNoError;
 import org.lwjgl.system.APIUtil.APIVersion;
 import org.lwjgl.system.APIUtil;
-import org.lwjgl.system.Callback;
-import org.lwjgl.system.CallbackI;
 import org.lwjgl.system.Checks;
 import org.lwjgl.system.JNI;
 import org.lwjgl.system.MemoryStack;
@@ -41,24 +44,13 @@ import org.lwjgl.system.jawt.JAWT;
 import org.lwjgl.system.jawt.JAWTDrawingSurface;
 import org.lwjgl.system.jawt.JAWTDrawingSurfaceInfo;
 import org.lwjgl.system.jawt.JAWTX11DrawingSurfaceInfo;
-import org.lwjgl.system.libffi.FFICIF;
 import org.lwjgl.system.linux.X11;
 
-import static org.lwjgl.system.libffi.LibFFI.*;
-import static org.lwjgl.system.Pointer.POINTER_SIZE;
 
 public class PlatformLinuxGLCanvas implements PlatformGLCanvas {
 	private static final long X_GET_GEOMETRY = X11.getLibrary().getFunctionAddress("XGetGeometry");
-	private static final long X_SET_ERROR_HANDLER = X11.getLibrary().getFunctionAddress("XSetErrorHandler");
-	private static final long X_SYNC = X11.getLibrary().getFunctionAddress("XSync");
-	private static final Object X_ERROR_HANDLER_LOCK = new Object();
-	private static volatile boolean contextCreationXError;
-	private static final XErrorHandlerI CONTEXT_CREATION_ERROR_HANDLER = (ignoredDisplay, ignoredEvent) -> {
-		contextCreationXError = true;
-		return 0;
-	};
-	private static final long CONTEXT_CREATION_ERROR_HANDLER_ADDRESS =
-			CONTEXT_CREATION_ERROR_HANDLER.address();
+	static final ConfigCache<FBConfigChoice> FB_CONFIGS = new ConfigCache<>();
+	static final ContextVersionMemo CONTEXT_VERSIONS = new ContextVersionMemo();
 	public static final JAWT awt;
 	static {
 		awt = JAWT.create(MemoryUtil.getAllocator().calloc(1, JAWT.SIZEOF)); // untracked allocation
@@ -67,14 +59,65 @@ public class PlatformLinuxGLCanvas implements PlatformGLCanvas {
 			throw new AssertionError("GetAWT failed");
 	}
 
+	/** The connection GLX calls are made on, which is AWT's own unless {@link GLData#privateDisplay} was requested. */
 	public long display;
 	public long drawable;
 	public JAWTDrawingSurface ds;
+	private final DrawingSurface drawingSurface = new DrawingSurface(awt);
 	private Canvas canvas;
+	/** The display connection of AWT, which windows of a reattached peer must be on as well. */
+	private long awtDisplay;
 	private Thread drawingSurfaceThread;
+	private long visualID;
+	private GLXSwapInterval swapInterval;
+	/** Whether {@link #swapInterval} must be applied to a new drawable on the next activation. */
+	private boolean swapIntervalPending;
+	private int contextVersionAttempts;
+	/** Whether the context may be made current without a drawable, which GLX allows from OpenGL 3.0 on. */
+	private boolean bindableWithoutDrawable;
+	/** Whether {@link #drawableWidth} and {@link #drawableHeight} are current. Cleared when the size may change. */
+	private volatile boolean drawableSizeValid;
+	private int drawableWidth;
+	private int drawableHeight;
+	private volatile long framebufferSizeQueries;
+
+	/**
+	 * A framebuffer configuration chosen for a window visual together with what was derived from it. GLXFBConfigs are
+	 * owned by their display, so the handle stays valid for as long as AWT keeps the display open.
+	 */
+	static final class FBConfigChoice {
+		final long fbConfig;
+		final Set<String> extensions;
+		final GLXSwapInterval swapInterval;
+		/** The framebuffer attributes of {@link #fbConfig}. */
+		final GLData effective;
+		/** Identifies the GLX client library and server that create contexts for this configuration. */
+		final String driver;
+
+		FBConfigChoice(long fbConfig, Set<String> extensions, GLXSwapInterval swapInterval, GLData effective,
+				String driver) {
+			this.fbConfig = fbConfig;
+			this.extensions = extensions;
+			this.swapInterval = swapInterval;
+			this.effective = effective;
+			this.driver = driver;
+		}
+
+		void copyEffectiveTo(GLData effective) {
+			effective.redSize = this.effective.redSize;
+			effective.greenSize = this.effective.greenSize;
+			effective.blueSize = this.effective.blueSize;
+			effective.depthSize = this.effective.depthSize;
+			effective.doubleBuffer = this.effective.doubleBuffer;
+		}
+	}
 
-	private long create(int depth, GLData attribs, GLData effective) throws AWTException {
-		int screen = X11.XDefaultScreen(display);
+	private FBConfigChoice chooseFBConfig(int screen, GLData attribs) throws AWTException {
+		ConfigCache.Key key = ConfigCache.key(display, screen, visualID, attribs, 0);
+		FBConfigChoice cached = FB_CONFIGS.get(key);
+		if (cached != null) {
+			return cached;
+		}
 		Set<String> extensions = GLXSwapInterval.parseExtensions(
 				glXQueryExtensionsString(display, screen));
 		IntBuffer attrib_list = BufferUtils.createIntBuffer(16 * 2);
@@ -106,6 +149,20 @@ public class PlatformLinuxGLCanvas implements PlatformGLCanvas {
 		}
 
 		GLXSwapInterval swapInterval = verifyGLXCapabilities(extensions, attribs);
+		GLData configAttribs = new GLData();
+		populateEffectiveGLXAttribs(display, fbConfig, configAttribs);
+		String driver = glXGetClientString(display, GLX_VENDOR) + " " + glXGetClientString(display, GLX_VERSION)
+				+ " / " + glXQueryServerString(display, screen, GLX_VENDOR)
+				+ " " + glXQueryServerString(display, screen, GLX_VERSION);
+		return FB_CONFIGS.putIfAbsent(key, new FBConfigChoice(fbConfig,
+				Collections.unmodifiableSet(extensions), swapInterval, configAttribs, driver));
+	}
+
+	private long create(int depth, GLData attribs, GLData effective) throws AWTException {
+		FBConfigChoice config = chooseFBConfig(X11.XDefaultScreen(display), attribs);
+		long fbConfig = config.fbConfig;
+		GLXSwapInterval swapInterval = config.swapInterval;
+		this.swapInterval = swapInterval;
 		List<GLUtil.ContextVersion> candidates = GLUtil.contextVersionCandidates(attribs,
 				attribs.api == GLData.API.GLES ? 3 : 4,
 				attribs.api == GLData.API.GLES ? 2 : 6);
@@ -116,28 +173,33 @@ public class PlatformLinuxGLCanvas implements PlatformGLCanvas {
 				throw new IllegalStateException(
 						"Attributes specified shareContext but it is not yet created and thus cannot be shared");
 			}
+			PlatformGLCanvas shared = attribs.shareContext.platformCanvas;
+			if (shared instanceof PlatformLinuxGLCanvas && ((PlatformLinuxGLCanvas) shared).display != display) {
+				throw new AWTException("Shared GLX contexts must use the same X display connection");
+			}
 			share_context = attribs.shareContext.context;
 		}
 		
-		long context = 0L;
-		for (GLUtil.ContextVersion version : candidates) {
-			context = tryCreateContext(fbConfig, share_context,
-					bufferGLAttribs(attribs, version));
-			if (context != 0L) {
-				break;
-			}
-		}
+		long shareContext = share_context;
+		ContextVersionProbe probe = ContextVersionProbe.probe(candidates,
+				CONTEXT_VERSIONS.preferred(display, config.driver, attribs, candidates),
+				created -> CONTEXT_VERSIONS.isPreferredVerified(display, config.driver, attribs,
+						() -> renderer(created)),
+				version -> tryCreateContext(fbConfig, shareContext, bufferGLAttribs(attribs, version)),
+				created -> glXDestroyContext(display, created));
+		contextVersionAttempts = probe.attempts;
+		long context = probe.context;
 		if (context == 0) {
 			if (attribs.versionPolicy == GLData.VersionPolicy.EXACT) {
 				throw new AWTException("Unable to create GLX context");
 			}
 			throw new AWTException("Unable to create a GLX context satisfying "
-					+ GLUtil.describeVersionRequest(attribs) + " after " + candidates.size() + " attempts");
+					+ GLUtil.describeVersionRequest(attribs) + " after " + probe.attempts + " attempts");
 		}
 
 		boolean initialized = false;
 		try {
-			populateEffectiveGLXAttribs(display, fbConfig, effective);
+			config.copyEffectiveTo(effective);
 
 			if (!glXMakeCurrent(display, drawable, context)) {
 				throw new AWTException("Unable to make context current");
@@ -148,7 +210,11 @@ public class PlatformLinuxGLCanvas implements PlatformGLCanvas {
 				swapInterval.apply(display, drawable);
 			}
 			effective.versionPolicy = attribs.versionPolicy;
+			effective.privateDisplay = display != awtDisplay;
 			populateEffectiveGLAttribs(attribs, effective);
+			bindableWithoutDrawable = effective.api == GLData.API.GL
+					&& GLUtil.atLeast30(effective.majorVersion, effective.minorVersion);
+			CONTEXT_VERSIONS.succeeded(display, config.driver, attribs, probe.version, PlatformLinuxGLCanvas::renderer);
 			initialized = true;
 			return context;
 		} finally {
@@ -160,28 +226,24 @@ public class PlatformLinuxGLCanvas implements PlatformGLCanvas {
 	}
 
 	private long tryCreateContext(long fbConfig, long shareContext, IntBuffer attributes) {
-		synchronized (X_ERROR_HANDLER_LOCK) {
-			// Context creation failures are reported as X errors by GLX. Flush older errors before temporarily replacing
-			// AWT's process-wide handler, then synchronize again while our handler is installed.
-			JNI.callPI(display, 0, X_SYNC);
-			contextCreationXError = false;
-			long previousErrorHandler = JNI.callPP(CONTEXT_CREATION_ERROR_HANDLER_ADDRESS, X_SET_ERROR_HANDLER);
-			long context;
-			try {
-				context = glXCreateContextAttribsARB(
-						display, fbConfig, shareContext, true, attributes);
-				JNI.callPI(display, 0, X_SYNC);
-			} finally {
-				JNI.callPP(previousErrorHandler, X_SET_ERROR_HANDLER);
-			}
-			if (contextCreationXError) {
-				if (context != 0L) {
-					glXDestroyContext(display, context);
-				}
-				return 0L;
+		// Context creation failures are reported as X errors by GLX. The trap only claims errors of this display's
+		// requests, so canvases on other displays can create contexts at the same time.
+		XErrorTrap trap = XErrorTrap.begin(display);
+		long context = 0L;
+		boolean failed;
+		try {
+			context = glXCreateContextAttribsARB(
+					display, fbConfig, shareContext, true, attributes);
+		} finally {
+			failed = trap.end();
+		}
+		if (failed) {
+			if (context != 0L) {
+				glXDestroyContext(display, context);
 			}
-			return context;
+			return 0L;
 		}
+		return context;
 	}
 
 	public void lock() throws AWTException {
@@ -191,16 +253,11 @@ public class PlatformLinuxGLCanvas implements PlatformGLCanvas {
 		if (canvas == null) {
 			throw new AWTException("Canvas has not been created or was disposed");
 		}
-		JAWTDrawingSurface ds = JAWT_GetDrawingSurface(canvas, awt.GetDrawingSurface());
-		if (ds == null) {
-			throw new AWTException("Failed to get JAWT drawing surface");
+		int lock = drawingSurface.lock(canvas);
+		if ((lock & (JAWT_LOCK_BOUNDS_CHANGED | JAWT_LOCK_SURFACE_CHANGED)) != 0) {
+			drawableSizeValid = false;
 		}
-		int lock = JAWT_DrawingSurface_Lock(ds, ds.Lock());
-		if ((lock & JAWT_LOCK_ERROR) != 0) {
-			JAWT_FreeDrawingSurface(ds, awt.FreeDrawingSurface());
-			throw new AWTException("JAWT_DrawingSurface_Lock() failed");
-		}
-		this.ds = ds;
+		this.ds = drawingSurface.get();
 		this.drawingSurfaceThread = Thread.currentThread();
 	}
 
@@ -214,43 +271,103 @@ public class PlatformLinuxGLCanvas implements PlatformGLCanvas {
 		}
 		this.ds = null;
 		this.drawingSurfaceThread = null;
-		try {
-			JAWT_DrawingSurface_Unlock(ds, ds.Unlock());
-		} finally {
-			JAWT_FreeDrawingSurface(ds, awt.FreeDrawingSurface());
-		}
+		drawingSurface.unlock();
 	}
 
 	public long create(Canvas canvas, GLData attribs, GLData effective) throws AWTException {
 		GLUtil.validateAttributes(attribs);
 		this.canvas = canvas;
-		JAWTDrawingSurface ds = JAWT_GetDrawingSurface(canvas, awt.GetDrawingSurface());
-		if (ds == null) {
-			throw new AWTException("Failed to get JAWT drawing surface");
+		return withX11DrawingSurfaceInfo(dsiWin -> {
+			int depth = dsiWin.depth();
+			this.awtDisplay = dsiWin.display();
+			this.display = attribs.privateDisplay ? PrivateXDisplays.connect(awtDisplay) : awtDisplay;
+			this.drawable = dsiWin.drawable();
+			this.drawableSizeValid = false;
+			this.visualID = dsiWin.visualID();
+			return create(depth, attribs, effective);
+		});
+	}
+
+	/**
+	 * Forgets the drawable of the peer that is about to be destroyed. A GLX context is not tied to a drawable, so it
+	 * stays valid on AWT's display until it is bound to the next peer's window.
+	 */
+	@Override
+	public boolean park(long context) {
+		if (display == 0L || context == 0L) {
+			return false;
+		}
+		drawable = 0L;
+		drawingSurface.release();
+		return true;
+	}
+
+	@Override
+	public boolean reattach(long context) throws AWTException {
+		if (canvas == null) {
+			throw new AWTException("Canvas has not been created or was disposed");
+		}
+		return withX11DrawingSurfaceInfo(dsiWin -> {
+			// The context's framebuffer configuration was chosen for the previous window's visual.
+			if (dsiWin.display() != awtDisplay || dsiWin.visualID() != visualID) {
+				return false;
+			}
+			if (display != awtDisplay) {
+				// Makes the new window known to the server before it is used on the private connection.
+				PrivateXDisplays.connect(awtDisplay);
+			}
+			drawable = dsiWin.drawable();
+			drawableSizeValid = false;
+			swapIntervalPending = swapInterval != null;
+			return true;
+		});
+	}
+
+	/**
+	 * Binds the context with {@code None} as its draw and read drawable, which GLX_ARB_create_context defines for OpenGL
+	 * 3.0 and later contexts. AWT's toolkit lock is taken instead of the drawing surface lock because there is no peer.
+	 */
+	@Override
+	public boolean makeCurrentWithoutDrawable(long context) {
+		if (display == 0L || context != 0L && !bindableWithoutDrawable) {
+			return false;
 		}
+		JAWT_Lock(awt.Lock());
 		try {
-			int lock = JAWT_DrawingSurface_Lock(ds, ds.Lock());
-			if ((lock & JAWT_LOCK_ERROR) != 0)
-				throw new AWTException("JAWT_DrawingSurface_Lock() failed");
+			// A rejected binding is reported as an X error, which must not reach AWT's handler.
+			XErrorTrap trap = XErrorTrap.begin(display);
+			boolean current;
+			boolean failed;
 			try {
-				JAWTDrawingSurfaceInfo dsi = JAWT_DrawingSurface_GetDrawingSurfaceInfo(ds, ds.GetDrawingSurfaceInfo());
-				if (dsi == null) {
-					throw new AWTException("Failed to get JAWT drawing surface information");
-				}
-				try {
-					JAWTX11DrawingSurfaceInfo dsiWin = JAWTX11DrawingSurfaceInfo.create(dsi.platformInfo());
-					int depth = dsiWin.depth();
-					this.display = dsiWin.display();
-					this.drawable = dsiWin.drawable();
-					return create(depth, attribs, effective);
-				} finally {
-					JAWT_DrawingSurface_FreeDrawingSurfaceInfo(dsi, ds.FreeDrawingSurfaceInfo());
-				}
+				current = glXMakeContextCurrent(display, 0L, 0L, context);
 			} finally {
-				JAWT_DrawingSurface_Unlock(ds, ds.Unlock());
+				failed = trap.end();
 			}
+			return current && !failed;
 		} finally {
-			JAWT_FreeDrawingSurface(ds, awt.FreeDrawingSurface());
+			JAWT_Unlock(awt.Unlock());
+		}
+	}
+
+	private interface X11DrawingSurfaceInfoFunction<T> {
+		T apply(JAWTX11DrawingSurfaceInfo dsiWin) throws AWTException;
+	}
+
+	private <T> T withX11DrawingSurfaceInfo(X11DrawingSurfaceInfoFunction<T> function) throws AWTException {
+		drawingSurface.lock(canvas);
+		try {
+			JAWTDrawingSurface ds = drawingSurface.get();
+			JAWTDrawingSurfaceInfo dsi = JAWT_DrawingSurface_GetDrawingSurfaceInfo(ds, ds.GetDrawingSurfaceInfo());
+			if (dsi == null) {
+				throw new AWTException("Failed to get JAWT drawing surface information");
+			}
+			try {
+				return function.apply(JAWTX11DrawingSurfaceInfo.create(dsi.platformInfo()));
+			} finally {
+				JAWT_DrawingSurface_FreeDrawingSurfaceInfo(dsi, ds.FreeDrawingSurfaceInfo());
+			}
+		} finally {
+			drawingSurface.unlock();
 		}
 	}
 
@@ -263,7 +380,18 @@ public class PlatformLinuxGLCanvas implements PlatformGLCanvas {
 		requireLockedDrawingSurface();
 		if (context == 0L)
 			return glXMakeCurrent(display, 0L, 0L);
-		return glXMakeCurrent(display, drawable, context);
+		if (!glXMakeCurrent(display, drawable, context))
+			return false;
+		if (swapIntervalPending) {
+			// The swap interval is drawable state and has to be configured again for a reattached window.
+			swapIntervalPending = false;
+			try {
+				swapInterval.apply(display, drawable);
+			} catch (AWTException e) {
+				throw new IllegalStateException("Failed to configure the swap interval of the reattached drawable", e);
+			}
+		}
+		return true;
 	}
 
 	private void requireLockedDrawingSurface() {
@@ -279,11 +407,42 @@ public class PlatformLinuxGLCanvas implements PlatformGLCanvas {
 		return glXGetCurrentContext() == context;
 	}
 
+	@Override
+	public boolean isCurrentOnDrawable(long context) {
+		return context != 0L && drawable != 0L
+				&& glXGetCurrentContext() == context
+				&& glXGetCurrentDrawable() == drawable
+				&& glXGetCurrentDisplay() == display;
+	}
+
 	public boolean swapBuffers() {
 		glXSwapBuffers(display, drawable);
 		return true;
 	}
 
+	@Override
+	public int getContextVersionAttempts() {
+		return contextVersionAttempts;
+	}
+
+	/**
+	 * GLX commands do not depend on the drawing surface lock once the context is bound to the window.
+	 */
+	@Override
+	public boolean supportsUnlockedRendering() {
+		return true;
+	}
+
+	@Override
+	public void invalidateFramebufferSize() {
+		drawableSizeValid = false;
+	}
+
+	@Override
+	public long getFramebufferSizeQueries() {
+		return framebufferSizeQueries;
+	}
+
 	public boolean delayBeforeSwapNV(float seconds) {
 		throw new UnsupportedOperationException("NYI");
 	}
@@ -293,9 +452,21 @@ public class PlatformLinuxGLCanvas implements PlatformGLCanvas {
 		if (ds == null || display == 0L || drawable == 0L) {
 			return false;
 		}
+		if (drawableSizeValid) {
+			size[0] = drawableWidth;
+			size[1] = drawableHeight;
+			return true;
+		}
+		// XGetGeometry is a server round trip, so its result is kept until the canvas may have been resized. The flag
+		// is set before the query so that an invalidation during the query is not lost.
+		drawableSizeValid = true;
+		framebufferSizeQueries++;
 		if (getDrawableSize(display, drawable, size)) {
+			drawableWidth = size[0];
+			drawableHeight = size[1];
 			return true;
 		}
+		drawableSizeValid = false;
 		if (canvas == null) {
 			return false;
 		}
@@ -312,56 +483,11 @@ public class PlatformLinuxGLCanvas implements PlatformGLCanvas {
 	}
 
 	private static boolean getDrawableSize(long display, long drawable, int[] size) {
-		if (X_GET_GEOMETRY == NULL) {
-			return false;
-		}
-		try (MemoryStack stack = MemoryStack.stackPush()) {
-			PointerBuffer argumentTypes = stack.pointers(
-					ffi_type_pointer.address(),
-					ffi_type_ulong.address(),
-					ffi_type_pointer.address(),
-					ffi_type_pointer.address(),
-					ffi_type_pointer.address(),
-					ffi_type_pointer.address(),
-					ffi_type_pointer.address(),
-					ffi_type_pointer.address(),
-					ffi_type_pointer.address());
-			FFICIF cif = FFICIF.malloc(stack);
-			if (ffi_prep_cif(cif, FFI_DEFAULT_ABI, ffi_type_sint32, argumentTypes) != FFI_OK) {
-				return false;
-			}
-
-			PointerBuffer root = stack.mallocPointer(1);
-			IntBuffer geometry = stack.mallocInt(6);
-			PointerBuffer values = stack.pointers(
-					display,
-					drawable,
-					memAddress(root),
-					memAddress(geometry, 0),
-					memAddress(geometry, 1),
-					memAddress(geometry, 2),
-					memAddress(geometry, 3),
-					memAddress(geometry, 4),
-					memAddress(geometry, 5));
-			PointerBuffer arguments = stack.mallocPointer(values.remaining());
-			for (int i = 0; i < values.remaining(); i++) {
-				arguments.put(memAddress(values, i));
-			}
-			arguments.flip();
-
-			// libffi widens integral return values to ffi_arg, which is pointer-sized.
-			ByteBuffer result = stack.malloc(POINTER_SIZE);
-			ffi_call(cif, X_GET_GEOMETRY, result, arguments);
-			if (PointerBuffer.get(result, 0) == 0L) {
-				return false;
-			}
-			size[0] = geometry.get(2);
-			size[1] = geometry.get(3);
-			return true;
-		}
+		return X_GET_GEOMETRY != NULL && XGeometry.getSize(X_GET_GEOMETRY, display, drawable, size);
 	}
 
 	public void dispose() {
+		drawingSurface.release();
 		canvas = null;
 	}
 
@@ -382,6 +508,12 @@ public class PlatformLinuxGLCanvas implements PlatformGLCanvas {
 		if (data.contextResetIsolation && !extensions.contains("GLX_ARB_robustness_application_isolation")) {
 			throw new AWTException("OpenGL robustness requested but GLX_ARB_robustness_application_isolation is unavailable");
 		}
+		if (data.noError && !extensions.contains("GLX_ARB_create_context_no_error")) {
+			throw new AWTException("No-error context requested but GLX_ARB_create_context_no_error is unavailable");
+		}
+		if (data.contextReleaseBehavior != null && !extensions.contains("GLX_ARB_context_flush_control")) {
+			throw new AWTException("Context release behavior requested but GLX_ARB_context_flush_control is unavailable");
+		}
 		return GLXSwapInterval.create(data.swapInterval, extensions);
 	}
 
@@ -444,6 +576,17 @@ public class PlatformLinuxGLCanvas implements PlatformGLCanvas {
 		}
 		gl_attrib_list.put(GLX_CONTEXT_FLAGS_ARB).put(context_flags);
 
+		if (data.noError) {
+			gl_attrib_list.put(GLX_CONTEXT_OPENGL_NO_ERROR_ARB).put(1);
+		}
+
+		// Set the release behavior, which lets a context be released without an implicit flush
+		if (data.contextReleaseBehavior == GLData.ReleaseBehavior.NONE) {
+			gl_attrib_list.put(GLX_CONTEXT_RELEASE_BEHAVIOR_ARB).put(GLX_CONTEXT_RELEASE_BEHAVIOR_NONE_ARB);
+		} else if (data.contextReleaseBehavior == GLData.ReleaseBehavior.FLUSH) {
+			gl_attrib_list.put(GLX_CONTEXT_RELEASE_BEHAVIOR_ARB).put(GLX_CONTEXT_RELEASE_BEHAVIOR_FLUSH_ARB);
+		}
+
 		gl_attrib_list.put(0).flip();
 		return gl_attrib_list;
 	}
@@ -497,6 +640,7 @@ public class PlatformLinuxGLCanvas implements PlatformGLCanvas {
 					(effectiveContextFlags & ARBRobustness.GL_CONTEXT_FLAG_ROBUST_ACCESS_BIT_ARB) != 0;
 			effective.contextResetIsolation =
 					(effectiveContextFlags & GLX_CONTEXT_RESET_ISOLATION_BIT_ARB) != 0;
+			effective.noError = (effectiveContextFlags & KHRNoError.GL_CONTEXT_FLAG_NO_ERROR_BIT_KHR) != 0;
 		}
 
 		if (effective.robustness) {
@@ -506,6 +650,31 @@ public class PlatformLinuxGLCanvas implements PlatformGLCanvas {
 
 		effective.sampleBuffers = getInteger(GL13.GL_SAMPLE_BUFFERS, glGetIntegerv);
 		effective.samples = getInteger(GL13.GL_SAMPLES, glGetIntegerv);
+		// The query is only valid if the implementation supports flush control, which was verified when it was requested.
+		if (requested.contextReleaseBehavior != null) {
+			effective.contextReleaseBehavior = GLUtil.releaseBehavior(
+					getInteger(KHRContextFlushControl.GL_CONTEXT_RELEASE_BEHAVIOR, glGetIntegerv));
+		}
+	}
+
+	/**
+	 * Returns the {@code GL_RENDERER} and {@code GL_VERSION} of a context created while probing, or {@code null} if it
+	 * cannot be made current.
+	 */
+	private String renderer(long context) {
+		if (!glXMakeCurrent(display, drawable, context)) {
+			return null;
+		}
+		try {
+			return renderer();
+		} finally {
+			glXMakeCurrent(display, 0L, 0L);
+		}
+	}
+
+	private static String renderer() {
+		long glGetString = GL.getFunctionProvider().getFunctionAddress("glGetString");
+		return getString(GL11.GL_RENDERER, glGetString) + " " + getString(GL11.GL_VERSION, glGetString);
 	}
 
 	private static int getInteger(int pname, long function) {
@@ -523,28 +692,4 @@ public class PlatformLinuxGLCanvas implements PlatformGLCanvas {
 	private static String getString(int pname, long function) {
 		return memUTF8(Checks.check(JNI.callP(pname, function)));
 	}
-
-	@FunctionalInterface
-	private interface XErrorHandlerI extends CallbackI {
-		Callback.Descriptor DESCRIPTOR = new Callback.Descriptor(
-				XErrorHandlerI.class,
-				java.lang.invoke.MethodHandles.lookup(),
-				APIUtil.apiCreateCIF(FFI_DEFAULT_ABI, ffi_type_sint32,
-						ffi_type_pointer, ffi_type_pointer));
-
-		@Override
-		default Callback.Descriptor getDescriptor() {
-			return DESCRIPTOR;
-		}
-
-		@Override
-		default void callback(long returnValue, long arguments) {
-			int result = invoke(
-					memGetAddress(arguments),
-					memGetAddress(arguments + POINTER_SIZE));
-			memPutInt(returnValue, result);
-		}
-
-		int invoke(long display, long event);
-	}
 }
@@ -33,10 +33,12 @@ import static org.lwjgl.opengl.GL11.GL_VERSION;
 import static org.lwjgl.opengl.GL30.*;
 import static org.lwjgl.opengl.GL32.*;
 import static org.lwjgl.opengl.GL43.GL_CONTEXT_FLAG_DEBUG_BIT;
+import static org.lwjgl.opengl.KHRNoError.GL_CONTEXT_FLAG_NO_ERROR_BIT_KHR;
 import static org.lwjgl.opengl.NVMultisampleCoverage.GL_COLOR_SAMPLES_NV;
 import static org.lwjgl.opengl.WGL.*;
 import static org.lwjgl.opengl.WGLARBContextFlushControl.*;
 import static org.lwjgl.opengl.WGLARBCreateContext.*;
+import static org.lwjgl.opengl.WGLARBCreateContextNoError.WGL_CONTEXT_OPENGL_NO_ERROR_ARB;
 import static org.lwjgl.opengl.WGLARBCreateContextProfile.*;
 import static org.lwjgl.opengl.WGLARBCreateContextRobustness.*;
 import static org.lwjgl.opengl.WGLARBFramebufferSRGB.WGL_FRAMEBUFFER_SRGB_CAPABLE_ARB;
@@ -79,6 +81,7 @@ public class PlatformWin32GLCanvas implements PlatformGLCanvas {
     public long wglDelayBeforeSwapNVAddr = 0L;
     public boolean wglDelayBeforeSwapNVAddr_set = false;
     public JAWTDrawingSurface ds;
+    private final DrawingSurface drawingSurface = new DrawingSurface(awt);
     private JAWTDrawingSurfaceInfo dsi;
     private long hdc;
     private Thread drawingSurfaceThread;
@@ -149,41 +152,32 @@ public class PlatformWin32GLCanvas implements PlatformGLCanvas {
     @Override
     public long create(Canvas canvas, GLData attribs, GLData effective) throws AWTException {
         this.canvas = canvas;
-        JAWTDrawingSurface ds = JAWT_GetDrawingSurface(canvas, awt.GetDrawingSurface());
-        if (ds == null) {
-            throw new AWTException("Failed to get JAWT drawing surface");
-        }
+        drawingSurface.lock(canvas);
         try {
-            int lock = JAWT_DrawingSurface_Lock(ds, ds.Lock());
-            if ((lock & JAWT_LOCK_ERROR) != 0)
-                throw new AWTException("JAWT_DrawingSurface_Lock() failed");
+            JAWTDrawingSurface ds = drawingSurface.get();
+            JAWTDrawingSurfaceInfo dsi = JAWT_DrawingSurface_GetDrawingSurfaceInfo(ds, ds.GetDrawingSurfaceInfo());
+            if (dsi == null) {
+                throw new AWTException("Failed to get JAWT drawing surface info");
+            }
             try {
-                JAWTDrawingSurfaceInfo dsi = JAWT_DrawingSurface_GetDrawingSurfaceInfo(ds, ds.GetDrawingSurfaceInfo());
-                if (dsi == null) {
-                    throw new AWTException("Failed to get JAWT drawing surface info");
-                }
-                try {
-                    JAWTWin32DrawingSurfaceInfo dsiWin = JAWTWin32DrawingSurfaceInfo.create(dsi.platformInfo());
-                    this.hwnd = dsiWin.hwnd();
-                    try (MemoryStack stack = stackPush()) {
-                        long hwndDummy = createDummyWindow(stack);
-                        if (hwndDummy == 0L) {
-                            throw new AWTException("Failed to create dummy window");
-                        }
-                        try {
-                            return create(stack, dsiWin.hdc(), hwndDummy, attribs, effective);
-                        } finally {
-                            DestroyWindow(null, hwndDummy);
-                        }
+                JAWTWin32DrawingSurfaceInfo dsiWin = JAWTWin32DrawingSurfaceInfo.create(dsi.platformInfo());
+                this.hwnd = dsiWin.hwnd();
+                try (MemoryStack stack = stackPush()) {
+                    long hwndDummy = createDummyWindow(stack);
+                    if (hwndDummy == 0L) {
+                        throw new AWTException("Failed to create dummy window");
+                    }
+                    try {
+                        return create(stack, dsiWin.hdc(), hwndDummy, attribs, effective);
+                    } finally {
+                        DestroyWindow(null, hwndDummy);
                     }
-                } finally {
-                    JAWT_DrawingSurface_FreeDrawingSurfaceInfo(dsi, ds.FreeDrawingSurfaceInfo());
                 }
             } finally {
-                JAWT_DrawingSurface_Unlock(ds, ds.Unlock());
+                JAWT_DrawingSurface_FreeDrawingSurfaceInfo(dsi, ds.FreeDrawingSurfaceInfo());
             }
         } finally {
-            JAWT_FreeDrawingSurface(ds, awt.FreeDrawingSurface());
+            drawingSurface.unlock();
         }
     }
 
@@ -246,6 +240,7 @@ public class PlatformWin32GLCanvas implements PlatformGLCanvas {
                     && !attribs.pixelFormatFloat
                     && attribs.contextReleaseBehavior == null
                     && !attribs.robustness
+                    && !attribs.noError
                     && attribs.api != API.GLES;
             if (legacyContext) {
                 return createLegacyContext(hDC, pixelFormat, pfd,
@@ -495,6 +490,11 @@ public class PlatformWin32GLCanvas implements PlatformGLCanvas {
         if (contextFlags > 0) {
             attribList.put(WGL_CONTEXT_FLAGS_ARB).put(contextFlags);
         }
+        if (attribs.noError) {
+            requireExtension(wglExtensions, "WGL_ARB_create_context_no_error",
+                    "No-error context requested but WGL_ARB_create_context_no_error is unavailable");
+            attribList.put(WGL_CONTEXT_OPENGL_NO_ERROR_ARB).put(1);
+        }
         if (attribs.contextReleaseBehavior != null) {
             requireExtension(wglExtensions, "WGL_ARB_context_flush_control",
                     "Context release behavior requested but WGL_ARB_context_flush_control is unavailable");
@@ -606,6 +606,7 @@ public class PlatformWin32GLCanvas implements PlatformGLCanvas {
             effective.debug = (effectiveContextFlags & GL_CONTEXT_FLAG_DEBUG_BIT) != 0;
             effective.forwardCompatible = (effectiveContextFlags & GL_CONTEXT_FLAG_FORWARD_COMPATIBLE_BIT) != 0;
             effective.robustness = (effectiveContextFlags & GL_CONTEXT_FLAG_ROBUST_ACCESS_BIT_ARB) != 0;
+            effective.noError = (effectiveContextFlags & GL_CONTEXT_FLAG_NO_ERROR_BIT_KHR) != 0;
         }
         if (attribs.api == API.GL && atLeast32(effective.majorVersion, effective.minorVersion)) {
             callPV(GL_CONTEXT_PROFILE_MASK, bufferAddr, getInteger);
@@ -681,6 +682,15 @@ public class PlatformWin32GLCanvas implements PlatformGLCanvas {
         return ret == context;
     }
 
+    @Override
+    public boolean isCurrentOnDrawable(long context) {
+        long hdc = this.hdc;
+        // JAWT may hand out a different device context after the peer was reconfigured.
+        return context != 0L && hdc != 0L
+                && wglGetCurrentContext(null) == context
+                && wglGetCurrentDC() == hdc;
+    }
+
     @Override
     public boolean makeCurrent(long context) {
         long hdc = requireLockedHdc();
@@ -748,19 +758,11 @@ public class PlatformWin32GLCanvas implements PlatformGLCanvas {
         if (canvas == null) {
             throw new AWTException("Canvas has not been created or was disposed");
         }
-        JAWTDrawingSurface ds = JAWT_GetDrawingSurface(canvas, awt.GetDrawingSurface());
-        if (ds == null) {
-            throw new AWTException("Failed to get JAWT drawing surface");
-        }
-        boolean locked = false;
+        drawingSurface.lock(canvas);
+        JAWTDrawingSurface ds = drawingSurface.get();
         JAWTDrawingSurfaceInfo dsi = null;
         boolean success = false;
         try {
-            int lock = JAWT_DrawingSurface_Lock(ds, ds.Lock());
-            if ((lock & JAWT_LOCK_ERROR) != 0) {
-                throw new AWTException("JAWT_DrawingSurface_Lock() failed");
-            }
-            locked = true;
             dsi = JAWT_DrawingSurface_GetDrawingSurfaceInfo(ds, ds.GetDrawingSurfaceInfo());
             if (dsi == null) {
                 throw new AWTException("Failed to get JAWT drawing surface info");
@@ -785,10 +787,9 @@ public class PlatformWin32GLCanvas implements PlatformGLCanvas {
                 if (dsi != null) {
                     JAWT_DrawingSurface_FreeDrawingSurfaceInfo(dsi, ds.FreeDrawingSurfaceInfo());
                 }
-                if (locked) {
-                    JAWT_DrawingSurface_Unlock(ds, ds.Unlock());
-                }
-                JAWT_FreeDrawingSurface(ds, awt.FreeDrawingSurface());
+                drawingSurface.unlock();
+                // The peer may have been replaced, so start over with a fresh surface.
+                drawingSurface.release();
             }
         }
     }
@@ -812,11 +813,7 @@ public class PlatformWin32GLCanvas implements PlatformGLCanvas {
                 JAWT_DrawingSurface_FreeDrawingSurfaceInfo(dsi, ds.FreeDrawingSurfaceInfo());
             }
         } finally {
-            try {
-                JAWT_DrawingSurface_Unlock(ds, ds.Unlock());
-            } finally {
-                JAWT_FreeDrawingSurface(ds, awt.FreeDrawingSurface());
-            }
+            drawingSurface.unlock();
         }
     }
 
@@ -855,6 +852,7 @@ public class PlatformWin32GLCanvas implements PlatformGLCanvas {
 
     @Override
     public void dispose() {
+        drawingSurface.release();
         canvas = null;
         hwnd = 0L;
     }
@@ -0,0 +1,112 @@
+package org.lwjgl.opengl.awt;
+
+import static org.lwjgl.system.MemoryUtil.*;
+
+import java.awt.AWTException;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.lwjgl.system.JNI;
+import org.lwjgl.system.linux.X11;
+
+/**
+ * Private X display connections for OpenGL rendering, one per X server and kept open for the lifetime of the process.
+ *
+ * <p>AWT makes all of its Xlib calls on a single connection, serialized by the AWT lock. GLX and EGL calls on that
+ * connection, including buffer swaps and drawable size queries, share its request queue with AWT's event processing.
+ * A private connection to the same server renders into the same windows, because window XIDs are server resources, but
+ * has a request queue of its own. Several render threads may only use Xlib connections if {@code XInitThreads} ran
+ * before any other Xlib call, which libX11 1.8 and later do when they are loaded. With older versions the application
+ * must call it before AWT starts, because AWT has made Xlib calls by the time a canvas is created; otherwise private
+ * connections are refused. Contexts and framebuffer configurations belong to the connection they were created on,
+ * which is why connections are never closed.</p>
+ */
+final class PrivateXDisplays {
+    private final Connector connector;
+    private final Map<String, Long> connections = new HashMap<>();
+
+    PrivateXDisplays(Connector connector) {
+        this.connector = connector;
+    }
+
+    /**
+     * Returns the private connection to the X server of AWT's {@code awtDisplay}, opening it on first use.
+     *
+     * <p>Requests of different connections are not ordered, so AWT's display is synchronized first. Windows created by
+     * AWT can then be used on the returned connection. Must be called with the JAWT drawing surface locked.</p>
+     */
+    static long connect(long awtDisplay) throws AWTException {
+        return X11Connector.DISPLAYS.connectTo(awtDisplay);
+    }
+
+    synchronized long connectTo(long awtDisplay) throws AWTException {
+        if (awtDisplay == NULL) {
+            throw new AWTException("JAWT returned no X11 display");
+        }
+        if (!connector.threadsInitialized()) {
+            throw new AWTException("A private X11 display connection requires XInitThreads() to be called before AWT "
+                    + "starts, or libX11 1.8 or later");
+        }
+        String name = connector.getName(awtDisplay);
+        connector.sync(awtDisplay);
+        Long connection = connections.get(name);
+        if (connection != null) {
+            return connection;
+        }
+        long display = connector.open(name);
+        connections.put(name, display);
+        return display;
+    }
+
+    /**
+     * The Xlib functions used to open connections, separated so that the bookkeeping can be used without loading Xlib.
+     */
+    interface Connector {
+        /**
+         * Returns whether Xlib was initialized for threads. Calling {@code XInitThreads} now would be too late.
+         */
+        boolean threadsInitialized();
+
+        String getName(long display) throws AWTException;
+
+        void sync(long display);
+
+        long open(String name) throws AWTException;
+    }
+
+    private static final class X11Connector implements Connector {
+        /** The global lock of Xlib, set once {@code XInitThreads} has been called. */
+        static final long X_GLOBAL_LOCK = X11.getLibrary().getFunctionAddress("_Xglobal_lock");
+        static final long X_DISPLAY_STRING = X11.getLibrary().getFunctionAddress("XDisplayString");
+        static final long X_SYNC = X11.getLibrary().getFunctionAddress("XSync");
+        static final PrivateXDisplays DISPLAYS = new PrivateXDisplays(new X11Connector());
+
+        @Override
+        public boolean threadsInitialized() {
+            return X_GLOBAL_LOCK != NULL && memGetAddress(X_GLOBAL_LOCK) != NULL;
+        }
+
+        @Override
+        public String getName(long display) throws AWTException {
+            long name = JNI.callPP(display, X_DISPLAY_STRING);
+            if (name == NULL) {
+                throw new AWTException("X11 returned no display name");
+            }
+            return memUTF8(name);
+        }
+
+        @Override
+        public void sync(long display) {
+            JNI.callPI(display, 0, X_SYNC);
+        }
+
+        @Override
+        public long open(String name) throws AWTException {
+            long display = X11.XOpenDisplay(name);
+            if (display == NULL) {
+                throw new AWTException("Failed to open a private X11 display connection: " + name);
+            }
+            return display;
+        }
+    }
+}
@@ -0,0 +1,252 @@
+package org.lwjgl.opengl.awt;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Renders a set of {@link AWTGLCanvas} instances from a single shared render thread.
+ *
+ * <p>Registered canvases use the coordinator's thread as their {@linkplain AWTGLCanvas#startRenderThread() render
+ * thread}, so every context stays current on one thread and {@link AWTGLCanvas#render()} calls from other threads are
+ * executed there. {@link #renderFrame()} renders all visible canvases back-to-back in one pass. Canvases that share
+ * objects through {@link GLData#shareContext} are rendered next to each other, in registration order of the share
+ * group, so that context switches within a group follow each other directly.</p>
+ *
+ * <p>The duration of the last pass and of each canvas within it is recorded, which lets applications see that the
+ * frame cost follows the number of visible canvases.</p>
+ */
+public class RenderCoordinator implements AutoCloseable {
+    private final RenderThread thread = new RenderThread("AWTGLCanvas render coordinator");
+    private final Object entriesLock = new Object();
+    /** Registered canvases in rendering order, replaced as a whole on every change. */
+    private volatile Entry[] entries = new Entry[0];
+    private final AtomicBoolean framePending = new AtomicBoolean();
+    private volatile long lastFrameNanos;
+    private volatile int lastFrameCanvasCount;
+    private volatile boolean closed;
+
+    private static final class Entry {
+        final AWTGLCanvas canvas;
+        final AWTGLCanvas shareGroupRoot;
+        volatile long lastFrameNanos = -1L;
+
+        Entry(AWTGLCanvas canvas) {
+            this.canvas = canvas;
+            this.shareGroupRoot = shareGroupRoot(canvas);
+        }
+    }
+
+    private static AWTGLCanvas shareGroupRoot(AWTGLCanvas canvas) {
+        AWTGLCanvas root = canvas;
+        // Bounded in case of a sharing cycle, which context creation would reject anyway.
+        for (int i = 0; i < 64 && root.data.shareContext != null; i++) {
+            root = root.data.shareContext;
+        }
+        return root;
+    }
+
+    /**
+     * Adds {@code canvas} to this coordinator and makes the coordinator's thread its render thread.
+     *
+     * @throws IllegalStateException if the canvas already has a render thread or this coordinator was closed
+     */
+    public void register(AWTGLCanvas canvas) {
+        synchronized (entriesLock) {
+            if (closed) {
+                throw new IllegalStateException("RenderCoordinator has been closed");
+            }
+            for (Entry entry : entries) {
+                if (entry.canvas == canvas) {
+                    return;
+                }
+            }
+            canvas.attachRenderThread(thread);
+            entries = ordered(entries, new Entry(canvas));
+        }
+    }
+
+    /**
+     * Removes {@code canvas} from this coordinator after releasing its context on the coordinator's thread. The canvas
+     * renders on its callers' threads again afterwards.
+     */
+    public void unregister(AWTGLCanvas canvas) {
+        synchronized (entriesLock) {
+            List<Entry> remaining = new ArrayList<>();
+            boolean found = false;
+            for (Entry entry : entries) {
+                if (entry.canvas == canvas) {
+                    found = true;
+                } else {
+                    remaining.add(entry);
+                }
+            }
+            if (!found) {
+                return;
+            }
+            entries = remaining.toArray(new Entry[0]);
+        }
+        canvas.detachRenderThread(thread);
+    }
+
+    private static Entry[] ordered(Entry[] entries, Entry added) {
+        List<Entry> result = new ArrayList<>(entries.length + 1);
+        boolean inserted = false;
+        for (Entry entry : entries) {
+            result.add(entry);
+        }
+        // Insert after the last member of the same share group, or append as a new group.
+        for (int i = result.size() - 1; i >= 0; i--) {
+            if (result.get(i).shareGroupRoot == added.shareGroupRoot) {
+                result.add(i + 1, added);
+                inserted = true;
+                break;
+            }
+        }
+        if (!inserted) {
+            result.add(added);
+        }
+        return result.toArray(new Entry[0]);
+    }
+
+    /**
+     * Renders every registered canvas that is currently {@linkplain AWTGLCanvas#getVisibility() visible} on the coordinator's thread and waits for the pass to
+     * complete.
+     *
+     * <p>A failure of one canvas does not prevent the others from being rendered. The first failure is rethrown after
+     * the pass, with later failures added as suppressed exceptions.</p>
+     */
+    public void renderFrame() {
+        thread.run(this::renderAll);
+    }
+
+    /**
+     * Requests a rendering pass on the coordinator's thread and returns immediately. Requests made before the pass
+     * starts are merged into it. Failures are reported to the coordinator thread's uncaught exception handler.
+     */
+    public void requestFrame() {
+        if (!framePending.compareAndSet(false, true)) {
+            return;
+        }
+        if (!thread.schedule(this::renderRequestedFrame, 0L)) {
+            framePending.set(false);
+        }
+    }
+
+    private void renderRequestedFrame() {
+        framePending.set(false);
+        try {
+            renderAll();
+        } catch (RuntimeException | Error e) {
+            Thread current = Thread.currentThread();
+            current.getUncaughtExceptionHandler().uncaughtException(current, e);
+        }
+    }
+
+    private void renderAll() {
+        Throwable failure = null;
+        int rendered = 0;
+        long frameStart = System.nanoTime();
+        for (Entry entry : entries) {
+            AWTGLCanvas canvas = entry.canvas;
+            if (canvas.getVisibility() != AWTGLCanvas.Visibility.VISIBLE) {
+                entry.lastFrameNanos = -1L;
+                continue;
+            }
+            long start = System.nanoTime();
+            try {
+                canvas.render();
+            } catch (RuntimeException | Error e) {
+                if (failure == null) {
+                    failure = e;
+                } else if (failure != e) {
+                    failure.addSuppressed(e);
+                }
+            }
+            entry.lastFrameNanos = System.nanoTime() - start;
+            rendered++;
+        }
+        lastFrameNanos = System.nanoTime() - frameStart;
+        lastFrameCanvasCount = rendered;
+        if (failure instanceof Error) {
+            throw (Error) failure;
+        }
+        if (failure != null) {
+            throw (RuntimeException) failure;
+        }
+    }
+
+    /**
+     * Returns the registered canvases in the order they are rendered.
+     */
+    public List<AWTGLCanvas> getCanvases() {
+        Entry[] entries = this.entries;
+        List<AWTGLCanvas> canvases = new ArrayList<>(entries.length);
+        for (Entry entry : entries) {
+            canvases.add(entry.canvas);
+        }
+        return canvases;
+    }
+
+    /**
+     * Returns the wall-clock duration in nanoseconds of the last rendering pass, or {@code 0} before the first pass.
+     */
+    public long getLastFrameNanos() {
+        return lastFrameNanos;
+    }
+
+    /**
+     * Returns how many canvases were rendered in the last rendering pass.
+     */
+    public int getLastFrameCanvasCount() {
+        return lastFrameCanvasCount;
+    }
+
+    /**
+     * Returns the duration in nanoseconds that {@code canvas} took in the last rendering pass, or {@code -1} if it was
+     * skipped, has not been rendered by this coordinator yet, or is not registered.
+     */
+    public long getLastFrameNanos(AWTGLCanvas canvas) {
+        for (Entry entry : entries) {
+            if (entry.canvas == canvas) {
+                return entry.lastFrameNanos;
+            }
+        }
+        return -1L;
+    }
+
+    /**
+     * Unregisters all canvases, releasing their contexts, and stops the coordinator's thread.
+     */
+    @Override
+    public void close() {
+        Entry[] remaining;
+        synchronized (entriesLock) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            remaining = entries;
+            entries = new Entry[0];
+        }
+        Throwable failure = null;
+        for (Entry entry : remaining) {
+            try {
+                entry.canvas.detachRenderThread(thread);
+            } catch (RuntimeException | Error e) {
+                if (failure == null) {
+                    failure = e;
+                } else {
+                    failure.addSuppressed(e);
+                }
+            }
+        }
+        thread.shutdown();
+        if (failure instanceof Error) {
+            throw (Error) failure;
+        }
+        if (failure != null) {
+            throw (RuntimeException) failure;
+        }
+    }
+}
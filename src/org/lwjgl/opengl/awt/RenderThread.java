@@ -0,0 +1,228 @@
+package org.lwjgl.opengl.awt;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A single daemon thread that owns an {@link AWTGLCanvas} while the canvas is in render-thread mode.
+ *
+ * <p>Work submitted from other threads is executed in submission order. Work submitted from the render thread itself
+ * runs immediately, so canvas operations may be nested in callbacks without deadlocking.</p>
+ */
+final class RenderThread {
+    private final ScheduledThreadPoolExecutor executor;
+    private volatile Thread thread;
+    /** The number of tasks submitted and not yet finished or cancelled, guarded by {@code this}. */
+    private int pendingTasks;
+
+    RenderThread(String name) {
+        executor = new ScheduledThreadPoolExecutor(1, runnable -> {
+            Thread t = new Thread(runnable, name);
+            t.setDaemon(true);
+            thread = t;
+            return t;
+        });
+        executor.setExecuteExistingDelayedTasksAfterShutdownPolicy(false);
+        executor.setRemoveOnCancelPolicy(true);
+        executor.prestartCoreThread();
+    }
+
+    boolean isCurrentThread() {
+        return Thread.currentThread() == thread;
+    }
+
+    /**
+     * Runs {@code callable} on the render thread and waits for its result, rethrowing its failure unchanged.
+     *
+     * <p>If the render thread has already been shut down, this waits for it to exit and then runs {@code callable} on
+     * the calling thread.</p>
+     */
+    <T> T call(Callable<T> callable) throws Exception {
+        if (isCurrentThread()) {
+            return callable.call();
+        }
+        Future<T> future;
+        try {
+            future = submit(callable, 0L);
+        } catch (RejectedExecutionException e) {
+            awaitTermination();
+            return callable.call();
+        }
+        return await(future);
+    }
+
+    /**
+     * Runs {@code callable} on the render thread like {@link #call(Callable)}, but only once no other work is running
+     * or waiting, including delayed work, so that {@code callable} starts right away. Gives up after
+     * {@code timeoutNanos}, and at once if called from the render thread itself.
+     *
+     * @return the result of {@code callable}, or {@code null} if the render thread stayed busy or has been shut down
+     */
+    <T> T callIfIdle(Callable<T> callable, long timeoutNanos) {
+        Future<T> future;
+        synchronized (this) {
+            long deadline = System.nanoTime() + timeoutNanos;
+            while (pendingTasks > 0) {
+                long remaining = deadline - System.nanoTime();
+                if (remaining <= 0L || isCurrentThread() || executor.isShutdown()) {
+                    return null;
+                }
+                try {
+                    TimeUnit.NANOSECONDS.timedWait(this, remaining);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return null;
+                }
+            }
+            try {
+                future = submit(callable, 0L);
+            } catch (RejectedExecutionException e) {
+                return null;
+            }
+        }
+        try {
+            return await(future);
+        } catch (RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private synchronized <T> Future<T> submit(Callable<T> callable, long delayNanos) {
+        Future<T> future = executor.schedule(() -> {
+            try {
+                return callable.call();
+            } finally {
+                taskFinished();
+            }
+        }, delayNanos, TimeUnit.NANOSECONDS);
+        pendingTasks++;
+        return future;
+    }
+
+    private synchronized void taskFinished() {
+        if (--pendingTasks == 0) {
+            notifyAll();
+        }
+    }
+
+    private static <T> T await(Future<T> future) throws Exception {
+        boolean interrupted = false;
+        try {
+            while (true) {
+                try {
+                    return future.get();
+                } catch (InterruptedException e) {
+                    // The task already owns the context; leaving early would let the caller race with it.
+                    interrupted = true;
+                } catch (ExecutionException e) {
+                    Throwable cause = e.getCause();
+                    if (cause instanceof Exception) {
+                        throw (Exception) cause;
+                    }
+                    if (cause instanceof Error) {
+                        throw (Error) cause;
+                    }
+                    throw e;
+                }
+            }
+        } finally {
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * Runs {@code runnable} on the render thread and waits for it to finish.
+     */
+    void run(Runnable runnable) {
+        try {
+            call(() -> {
+                runnable.run();
+                return null;
+            });
+        } catch (RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Schedules {@code runnable} to run on the render thread after {@code delayNanos}.
+     *
+     * @return {@code false} if the render thread has already been shut down
+     */
+    boolean schedule(Runnable runnable, long delayNanos) {
+        return scheduleCancellable(runnable, delayNanos) != null;
+    }
+
+    /**
+     * Schedules {@code runnable} like {@link #schedule(Runnable, long)}. Passing the returned future to
+     * {@link #cancel(Future)} removes it from the queue.
+     *
+     * @return {@code null} if the render thread has already been shut down
+     */
+    Future<?> scheduleCancellable(Runnable runnable, long delayNanos) {
+        try {
+            return submit(() -> {
+                runnable.run();
+                return null;
+            }, delayNanos);
+        } catch (RejectedExecutionException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Cancels a task of {@link #scheduleCancellable(Runnable, long)} unless it has already started.
+     */
+    synchronized void cancel(Future<?> future) {
+        if (future.cancel(false)) {
+            taskFinished();
+        }
+    }
+
+    /**
+     * Returns the number of tasks that are waiting to run.
+     */
+    int getQueuedTaskCount() {
+        return executor.getQueue().size();
+    }
+
+    /**
+     * Stops accepting work once already queued work has finished and waits for the thread to exit. Returns
+     * immediately when called from the render thread itself.
+     */
+    void shutdown() {
+        executor.shutdown();
+        if (!isCurrentThread()) {
+            awaitTermination();
+        }
+    }
+
+    private void awaitTermination() {
+        boolean interrupted = false;
+        try {
+            while (true) {
+                try {
+                    if (executor.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS)) {
+                        return;
+                    }
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+        } finally {
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+}
@@ -0,0 +1,167 @@
+package org.lwjgl.opengl.awt;
+
+import static org.lwjgl.system.MemoryUtil.*;
+import static org.lwjgl.system.Pointer.POINTER_SIZE;
+import static org.lwjgl.system.libffi.LibFFI.*;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.lwjgl.system.APIUtil;
+import org.lwjgl.system.Callback;
+import org.lwjgl.system.CallbackI;
+import org.lwjgl.system.JNI;
+import org.lwjgl.system.linux.X11;
+
+/**
+ * Attributes X errors to the operation that caused them.
+ *
+ * <p>GLX reports failures such as a rejected context version as asynchronous X errors. A trap records the errors of
+ * one display whose request serial is at least the serial of the first request made after {@link #begin(long)}. A
+ * single process-wide error handler dispatches each error to the trap of its display and passes all other errors on to
+ * the handler that was installed before, normally AWT's. Traps on different displays are therefore independent, while
+ * traps on the same display wait for each other.</p>
+ *
+ * <pre>{@code
+ * XErrorTrap trap = XErrorTrap.begin(display);
+ * try {
+ *     ... issue requests ...
+ * } finally {
+ *     failed = trap.end();
+ * }
+ * }</pre>
+ */
+final class XErrorTrap {
+    private static final ConcurrentMap<Long, XErrorTrap> TRAPS = new ConcurrentHashMap<>();
+    private static final ConcurrentMap<Long, ReentrantLock> DISPLAY_LOCKS = new ConcurrentHashMap<>();
+
+    private final long display;
+    private final long firstSerial;
+    private volatile int errorCode;
+
+    private XErrorTrap(long display, long firstSerial) {
+        this.display = display;
+        this.firstSerial = firstSerial;
+    }
+
+    /**
+     * Starts trapping the errors of requests that the calling thread subsequently makes on {@code display}. Errors of
+     * earlier requests are flushed first and reported to the previous handler.
+     */
+    static XErrorTrap begin(long display) {
+        ReentrantLock lock = DISPLAY_LOCKS.computeIfAbsent(display, ignored -> new ReentrantLock());
+        lock.lock();
+        try {
+            Native.install();
+            JNI.callPI(display, 0, Native.X_SYNC);
+            return register(display, JNI.callPP(display, Native.X_NEXT_REQUEST));
+        } catch (RuntimeException | Error e) {
+            lock.unlock();
+            throw e;
+        }
+    }
+
+    /**
+     * Waits until the X server has processed the trapped requests, stops trapping and returns whether any of them caused
+     * an error.
+     */
+    boolean end() {
+        try {
+            JNI.callPI(display, 0, Native.X_SYNC);
+        } finally {
+            unregister();
+            DISPLAY_LOCKS.get(display).unlock();
+        }
+        return errorCode != 0;
+    }
+
+    /**
+     * Returns the error code of the first trapped error, or {@code 0} if there was none.
+     */
+    int getErrorCode() {
+        return errorCode;
+    }
+
+    static XErrorTrap register(long display, long firstSerial) {
+        XErrorTrap trap = new XErrorTrap(display, firstSerial);
+        TRAPS.put(display, trap);
+        return trap;
+    }
+
+    void unregister() {
+        TRAPS.remove(display, this);
+    }
+
+    /**
+     * Records an error in the trap of {@code display} if it belongs to a trapped request.
+     *
+     * @return {@code false} if no trap claims the error
+     */
+    static boolean record(long display, long serial, int errorCode) {
+        XErrorTrap trap = TRAPS.get(display);
+        if (trap == null || serial < trap.firstSerial) {
+            return false;
+        }
+        if (trap.errorCode == 0) {
+            trap.errorCode = errorCode;
+        }
+        return true;
+    }
+
+    /**
+     * Native state, separated so that the trap bookkeeping can be used without loading Xlib.
+     */
+    private static final class Native {
+        static final long X_SET_ERROR_HANDLER = X11.getLibrary().getFunctionAddress("XSetErrorHandler");
+        static final long X_SYNC = X11.getLibrary().getFunctionAddress("XSync");
+        static final long X_NEXT_REQUEST = X11.getLibrary().getFunctionAddress("XNextRequest");
+        // XErrorEvent: int type; Display *display; XID resourceid; unsigned long serial; unsigned char error_code; ...
+        static final int SERIAL_OFFSET = 3 * POINTER_SIZE;
+        static final int ERROR_CODE_OFFSET = 4 * POINTER_SIZE;
+        static volatile long previousHandler;
+        static final XErrorHandlerI HANDLER = (display, event) -> {
+            if (record(display, memGetAddress(event + SERIAL_OFFSET), memGetByte(event + ERROR_CODE_OFFSET) & 0xFF)) {
+                return 0;
+            }
+            long previous = previousHandler;
+            return previous != NULL ? JNI.callPPI(display, event, previous) : 0;
+        };
+        static final long HANDLER_ADDRESS = HANDLER.address();
+
+        /**
+         * Installs the dispatching handler, again if another library replaced it since, and remembers the replaced
+         * handler to pass untrapped errors on to.
+         */
+        static synchronized void install() {
+            long previous = JNI.callPP(HANDLER_ADDRESS, X_SET_ERROR_HANDLER);
+            if (previous != HANDLER_ADDRESS) {
+                previousHandler = previous;
+            }
+        }
+    }
+
+    @FunctionalInterface
+    interface XErrorHandlerI extends CallbackI {
+        Callback.Descriptor DESCRIPTOR = new Callback.Descriptor(
+                XErrorHandlerI.class,
+                java.lang.invoke.MethodHandles.lookup(),
+                APIUtil.apiCreateCIF(FFI_DEFAULT_ABI, ffi_type_sint32,
+                        ffi_type_pointer, ffi_type_pointer));
+
+        @Override
+        default Callback.Descriptor getDescriptor() {
+            return DESCRIPTOR;
+        }
+
+        @Override
+        default void callback(long returnValue, long arguments) {
+            int result = invoke(
+                    memGetAddress(memGetAddress(arguments)),
+                    memGetAddress(memGetAddress(arguments + POINTER_SIZE)));
+            memPutInt(returnValue, result);
+        }
+
+        int invoke(long display, long event);
+    }
+}
@@ -0,0 +1,62 @@
+package org.lwjgl.opengl.awt;
+
+import static org.lwjgl.system.MemoryUtil.*;
+import static org.lwjgl.system.Pointer.POINTER_SIZE;
+import static org.lwjgl.system.libffi.LibFFI.*;
+
+import org.lwjgl.system.APIUtil;
+import org.lwjgl.system.MemoryStack;
+import org.lwjgl.system.libffi.FFICIF;
+
+/**
+ * Queries the size of an X drawable with {@code XGetGeometry} through a call interface that is prepared once, so that
+ * a query allocates no Java objects.
+ */
+final class XGeometry {
+    private XGeometry() {
+    }
+
+    /**
+     * Writes the width and height of {@code drawable} to {@code size}.
+     *
+     * @param function the address of {@code XGetGeometry}
+     * @return {@code false} if the query failed, in which case {@code size} is unchanged
+     */
+    static boolean getSize(long function, long display, long drawable, int[] size) {
+        // Called on every frame, so the arguments are laid out in raw stack memory instead of buffer instances.
+        try (MemoryStack stack = MemoryStack.stackPush()) {
+            long root = stack.nmalloc(POINTER_SIZE, POINTER_SIZE);
+            long geometry = stack.nmalloc(4, 6 * 4);
+            long values = stack.nmalloc(POINTER_SIZE, 9 * POINTER_SIZE);
+            long arguments = stack.nmalloc(POINTER_SIZE, 9 * POINTER_SIZE);
+            // libffi widens integral return values to ffi_arg, which is pointer-sized.
+            long result = stack.nmalloc(POINTER_SIZE, POINTER_SIZE);
+            memPutAddress(values, display);
+            memPutAddress(values + POINTER_SIZE, drawable);
+            memPutAddress(values + 2 * POINTER_SIZE, root);
+            for (int i = 0; i < 6; i++) {
+                memPutAddress(values + (3 + i) * POINTER_SIZE, geometry + i * 4);
+            }
+            for (int i = 0; i < 9; i++) {
+                memPutAddress(arguments + i * POINTER_SIZE, values + i * POINTER_SIZE);
+            }
+            nffi_call(XGetGeometryCIF.CIF.address(), function, result, arguments);
+            if (memGetAddress(result) == 0L) {
+                return false;
+            }
+            size[0] = memGetInt(geometry + 2 * 4);
+            size[1] = memGetInt(geometry + 3 * 4);
+            return true;
+        }
+    }
+
+    /**
+     * Call interface of {@code Status XGetGeometry(Display*, Drawable, Window*, int*, int*, unsigned int*,
+     * unsigned int*, unsigned int*, unsigned int*)}, prepared once.
+     */
+    static final class XGetGeometryCIF {
+        static final FFICIF CIF = APIUtil.apiCreateCIF(FFI_DEFAULT_ABI, ffi_type_sint32,
+                ffi_type_pointer, ffi_type_ulong, ffi_type_pointer, ffi_type_pointer, ffi_type_pointer,
+                ffi_type_pointer, ffi_type_pointer, ffi_type_pointer, ffi_type_pointer);
+    }
+}
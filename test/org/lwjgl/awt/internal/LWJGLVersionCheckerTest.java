@@ -24,6 +24,14 @@ class LWJGLVersionCheckerTest {
         assertEquals(Version.class.getPackage().getSpecificationVersion(), metadata.lwjglVersion);
     }
 
+    @Test
+    void libraryVersionIsResolvedOrUnknown() {
+        String version = LWJGLVersionChecker.libraryVersion();
+
+        assertFalse(version.isEmpty());
+        assertFalse(version.contains("${"));
+    }
+
     @Test
     void resolvedLwjglModulesMatchBuildMetadata() {
         LWJGLVersionChecker.BuildMetadata metadata = LWJGLVersionChecker.loadBuildMetadata();
@@ -0,0 +1,149 @@
+package org.lwjgl.opengl.awt;
+
+import org.junit.jupiter.api.Test;
+
+import java.awt.Canvas;
+import java.lang.management.ManagementFactory;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+class AWTGLCanvasAllocationTest {
+    private static final int WARM_UP_FRAMES = 20_000;
+    private static final int MEASURED_FRAMES = 10_000;
+    /** The best round is asserted, so that a one-off deoptimization during a round does not fail the test. */
+    private static final int MEASURED_ROUNDS = 3;
+    /** Far below one small array per frame, but tolerant of an occasional allocation by the VM itself. */
+    private static final long MAX_ALLOCATED_BYTES = 1024L;
+
+    @Test
+    void steadyStateRenderDoesNotAllocate() {
+        NoOpPlatformCanvas platform = new NoOpPlatformCanvas(true);
+        AWTGLCanvas canvas = renderFrames(platform);
+
+        assertEquals(640, canvas.getFramebufferWidth());
+    }
+
+    @Test
+    void steadyStateRenderWithComponentSizeDoesNotAllocate() {
+        NoOpPlatformCanvas platform = new NoOpPlatformCanvas(false);
+        AWTGLCanvas canvas = renderFrames(platform);
+
+        assertEquals(0, canvas.getFramebufferWidth());
+    }
+
+    private static AWTGLCanvas renderFrames(NoOpPlatformCanvas platform) {
+        com.sun.management.ThreadMXBean threads = threadMXBean();
+        AWTGLCanvas canvas = new AWTGLCanvas(new GLData()) {
+            {
+                platformCanvas = platform;
+            }
+
+            @Override
+            public void initGL() {
+            }
+
+            @Override
+            public void paintGL() {
+                swapBuffers();
+            }
+        };
+
+        for (int i = 0; i < WARM_UP_FRAMES; i++) {
+            canvas.render();
+        }
+        long thread = Thread.currentThread().getId();
+        long allocated = Long.MAX_VALUE;
+        for (int round = 0; round < MEASURED_ROUNDS; round++) {
+            long before = threads.getThreadAllocatedBytes(thread);
+            for (int i = 0; i < MEASURED_FRAMES; i++) {
+                canvas.render();
+            }
+            allocated = Math.min(allocated, threads.getThreadAllocatedBytes(thread) - before);
+        }
+
+        assertEquals(WARM_UP_FRAMES + MEASURED_ROUNDS * MEASURED_FRAMES, platform.swaps);
+        assertTrue(allocated < MAX_ALLOCATED_BYTES,
+                "Rendering " + MEASURED_FRAMES + " frames allocated " + allocated + " bytes");
+        return canvas;
+    }
+
+    static com.sun.management.ThreadMXBean threadMXBean() {
+        java.lang.management.ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        assumeTrue(threads instanceof com.sun.management.ThreadMXBean, "Thread allocation counters are unavailable");
+        com.sun.management.ThreadMXBean allocationCounters = (com.sun.management.ThreadMXBean) threads;
+        assumeTrue(allocationCounters.isThreadAllocatedMemorySupported(),
+                "Thread allocation counters are unsupported");
+        allocationCounters.setThreadAllocatedMemoryEnabled(true);
+        return allocationCounters;
+    }
+
+    /**
+     * Platform canvas that does nothing, so that only the allocations of {@link AWTGLCanvas} itself are measured.
+     */
+    private static final class NoOpPlatformCanvas implements PlatformGLCanvas {
+        /** Whether the framebuffer size is reported, or left to the component size like on Windows and macOS. */
+        private final boolean reportsFramebufferSize;
+        long currentContext;
+        int swaps;
+
+        NoOpPlatformCanvas(boolean reportsFramebufferSize) {
+            this.reportsFramebufferSize = reportsFramebufferSize;
+        }
+
+        @Override
+        public long create(Canvas canvas, GLData data, GLData effective) {
+            return 42L;
+        }
+
+        @Override
+        public boolean deleteContext(long context) {
+            return true;
+        }
+
+        @Override
+        public boolean makeCurrent(long context) {
+            currentContext = context;
+            return true;
+        }
+
+        @Override
+        public boolean isCurrent(long context) {
+            return currentContext == context;
+        }
+
+        @Override
+        public boolean swapBuffers() {
+            swaps++;
+            return true;
+        }
+
+        @Override
+        public boolean delayBeforeSwapNV(float seconds) {
+            return false;
+        }
+
+        @Override
+        public boolean getFramebufferSize(int[] size) {
+            if (!reportsFramebufferSize) {
+                return false;
+            }
+            size[0] = 640;
+            size[1] = 480;
+            return true;
+        }
+
+        @Override
+        public void lock() {
+        }
+
+        @Override
+        public void unlock() {
+        }
+
+        @Override
+        public void dispose() {
+        }
+    }
+}
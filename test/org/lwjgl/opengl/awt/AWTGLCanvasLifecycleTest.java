@@ -1,6 +1,7 @@
 package org.lwjgl.opengl.awt;
 
 import org.junit.jupiter.api.Test;
+import org.lwjgl.system.FunctionProvider;
 
 import java.awt.AWTException;
 import java.awt.Canvas;
@@ -9,23 +10,35 @@ import java.awt.Frame;
 import java.awt.GraphicsConfiguration;
 import java.awt.GraphicsDevice;
 import java.awt.GraphicsEnvironment;
+import java.awt.Panel;
 import java.awt.Rectangle;
 import java.awt.Transparency;
+import java.awt.event.ComponentEvent;
+import java.awt.event.ComponentListener;
 import java.awt.geom.AffineTransform;
 import java.awt.image.ColorModel;
+import java.beans.PropertyChangeEvent;
+import java.beans.PropertyChangeListener;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicReference;
 
 import static org.junit.jupiter.api.Assumptions.assumeFalse;
+import static org.lwjgl.system.MemoryUtil.memASCII;
+import static org.lwjgl.system.MemoryUtil.memAddress;
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
 import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertThrows;
@@ -67,6 +80,35 @@ class AWTGLCanvasLifecycleTest {
         assertEquals(600, canvas.getFramebufferHeight());
     }
 
+    @Test
+    void paintedFrameCountIncludesFramesNotRequestedThroughRequestRender() {
+        TestCanvas canvas = new TestCanvas(new RecordingPlatformCanvas());
+
+        canvas.render();
+        canvas.render();
+
+        assertEquals(2, canvas.getPaintedFrameCount());
+        assertEquals(0, canvas.getRenderedFrameCount());
+    }
+
+    @Test
+    void invalidatesCachedFramebufferSizeWhenResizedOrReconfigured() {
+        RecordingPlatformCanvas platform = new RecordingPlatformCanvas();
+        platform.framebufferSizeQueries = 7L;
+        TestCanvas canvas = new TestCanvas(platform);
+        assertEquals(7L, canvas.getFramebufferSizeQueries());
+
+        for (ComponentListener l : canvas.getComponentListeners()) {
+            l.componentResized(new ComponentEvent(canvas, ComponentEvent.COMPONENT_RESIZED));
+        }
+        assertEquals(1, platform.framebufferSizeInvalidations);
+
+        for (PropertyChangeListener l : canvas.getPropertyChangeListeners("graphicsConfiguration")) {
+            l.propertyChange(new PropertyChangeEvent(canvas, "graphicsConfiguration", null, null));
+        }
+        assertEquals(2, platform.framebufferSizeInvalidations);
+    }
+
     @Test
     void refreshesFallbackFramebufferSizeWhenGraphicsScaleChanges() {
         RecordingPlatformCanvas platform = new RecordingPlatformCanvas();
@@ -431,6 +473,60 @@ class AWTGLCanvasLifecycleTest {
                 "swapBuffers", "makeCurrent:0", "unlock"), platform.calls);
     }
 
+    @Test
+    void narrowSurfaceLockOnlyLocksForBindingAndSwapping() {
+        RecordingPlatformCanvas platform = new RecordingPlatformCanvas();
+        platform.supportsUnlockedRendering = true;
+        TestCanvas canvas = new TestCanvas(platform) {
+            @Override
+            public void paintGL() {
+                platform.calls.add("paint");
+                swapBuffers();
+            }
+        };
+        canvas.setNarrowSurfaceLock(true);
+
+        canvas.render();
+
+        assertEquals(Arrays.asList("create", "lock", "makeCurrent:42", "unlock", "paint",
+                "lock", "swapBuffers", "unlock", "lock", "makeCurrent:0", "unlock"), platform.calls);
+    }
+
+    @Test
+    void narrowSurfaceLockIsIgnoredByPlatformsThatNeedTheLockForRendering() {
+        RecordingPlatformCanvas platform = new RecordingPlatformCanvas();
+        TestCanvas canvas = new TestCanvas(platform) {
+            @Override
+            public void paintGL() {
+                platform.calls.add("paint");
+            }
+        };
+        canvas.setNarrowSurfaceLock(true);
+
+        canvas.render();
+
+        assertEquals(Arrays.asList("create", "lock", "makeCurrent:42", "paint", "makeCurrent:0", "unlock"),
+                platform.calls);
+    }
+
+    @Test
+    void narrowSurfaceLockReleasesTheContextWhenPaintingFails() {
+        RecordingPlatformCanvas platform = new RecordingPlatformCanvas();
+        platform.supportsUnlockedRendering = true;
+        TestCanvas canvas = new TestCanvas(platform) {
+            @Override
+            public void paintGL() {
+                throw new IllegalStateException("paint failed");
+            }
+        };
+        canvas.setNarrowSurfaceLock(true);
+
+        assertThrows(IllegalStateException.class, canvas::render);
+
+        assertEquals(Arrays.asList("create", "lock", "makeCurrent:42", "unlock",
+                "lock", "makeCurrent:0", "unlock"), platform.calls);
+    }
+
     @Test
     void swapBuffersRejectsCallsAfterContextDisposal() {
         RecordingPlatformCanvas platform = new RecordingPlatformCanvas();
@@ -682,120 +778,1235 @@ class AWTGLCanvasLifecycleTest {
         assertNull(secondFailure.get(), "Second canvas rendering failed");
     }
 
-    private static void runAndRecordFailure(Runnable action, AtomicReference<Throwable> failure) {
+    @Test
+    void renderThreadKeepsContextCurrentAcrossFrames() {
+        RecordingPlatformCanvas platform = new RecordingPlatformCanvas();
+        platform.reportsDrawableBinding = true;
+        AtomicInteger framesOnRenderThread = new AtomicInteger();
+        TestCanvas canvas = new TestCanvas(platform) {
+            @Override
+            public void paintGL() {
+                if (isRenderThread()) {
+                    framesOnRenderThread.incrementAndGet();
+                }
+                swapBuffers();
+            }
+        };
+        canvas.startRenderThread();
         try {
-            action.run();
-        } catch (Throwable t) {
-            failure.set(t);
+            canvas.render();
+            canvas.render();
+        } finally {
+            canvas.stopRenderThread();
         }
+
+        assertEquals(2, framesOnRenderThread.get());
+        assertFalse(canvas.isRenderThread());
+        assertEquals(Arrays.asList("create", "lock", "makeCurrent:42", "swapBuffers", "unlock",
+                "lock", "swapBuffers", "unlock",
+                "lock", "makeCurrent:0", "unlock"), platform.calls);
     }
 
-    private static class TestCanvas extends AWTGLCanvas {
-        TestCanvas(PlatformGLCanvas platformCanvas) {
-            this.platformCanvas = platformCanvas;
+    @Test
+    void renderThreadRebindsContextAfterResize() {
+        RecordingPlatformCanvas platform = new RecordingPlatformCanvas();
+        platform.reportsDrawableBinding = true;
+        TestCanvas canvas = new TestCanvas(platform);
+        canvas.startRenderThread();
+        try {
+            canvas.render();
+            for (ComponentListener l : canvas.getComponentListeners()) {
+                l.componentResized(new ComponentEvent(canvas, ComponentEvent.COMPONENT_RESIZED));
+            }
+            canvas.render();
+            canvas.render();
+        } finally {
+            canvas.stopRenderThread();
         }
 
-        @Override
-        public void initGL() {
-        }
+        assertEquals(Arrays.asList("create", "lock", "makeCurrent:42", "unlock",
+                "lock", "makeCurrent:42", "unlock",
+                "lock", "unlock",
+                "lock", "makeCurrent:0", "unlock"), platform.calls);
+    }
 
-        @Override
-        public void paintGL() {
+    @Test
+    void renderThreadRebindsContextWhenPlatformReportsAnotherDrawable() {
+        RecordingPlatformCanvas platform = new RecordingPlatformCanvas();
+        TestCanvas canvas = new TestCanvas(platform);
+        canvas.startRenderThread();
+        try {
+            canvas.render();
+            canvas.render();
+        } finally {
+            canvas.stopRenderThread();
         }
+
+        assertEquals(Arrays.asList("create", "lock", "makeCurrent:42", "unlock",
+                "lock", "makeCurrent:42", "unlock",
+                "lock", "makeCurrent:0", "unlock"), platform.calls);
     }
 
-    private static final class ScaledTestCanvas extends TestCanvas {
-        private final int width;
-        private final int height;
-        private GraphicsConfiguration graphicsConfiguration;
+    @Test
+    void disposeCanvasRunsOnRenderThreadThatHoldsTheContext() {
+        RecordingPlatformCanvas platform = new RecordingPlatformCanvas();
+        platform.reportsDrawableBinding = true;
+        AtomicBoolean disposedOnRenderThread = new AtomicBoolean();
+        TestCanvas canvas = new TestCanvas(platform) {
+            @Override
+            protected void disposeGL() {
+                disposedOnRenderThread.set(isRenderThread());
+            }
+        };
+        canvas.startRenderThread();
+        try {
+            canvas.render();
+            platform.calls.clear();
 
-        ScaledTestCanvas(PlatformGLCanvas platformCanvas, int width, int height, double scaleX, double scaleY) {
-            super(platformCanvas);
-            this.width = width;
-            this.height = height;
-            this.graphicsConfiguration = new TestGraphicsConfiguration(scaleX, scaleY);
+            canvas.disposeCanvas();
+        } finally {
+            canvas.stopRenderThread();
         }
 
-        @Override
-        public int getWidth() {
-            return width;
-        }
+        assertTrue(disposedOnRenderThread.get());
+        assertEquals(Arrays.asList("lock", "makeCurrent:42", "makeCurrent:0", "unlock", "delete:42", "dispose"),
+                platform.calls);
+    }
 
-        @Override
-        public int getHeight() {
-            return height;
-        }
+    @Test
+    void renderRunsOnCallingThreadAfterRenderThreadStops() {
+        RecordingPlatformCanvas platform = new RecordingPlatformCanvas();
+        platform.reportsDrawableBinding = true;
+        AtomicReference<Thread> paintThread = new AtomicReference<>();
+        TestCanvas canvas = new TestCanvas(platform) {
+            @Override
+            public void paintGL() {
+                paintThread.set(Thread.currentThread());
+            }
+        };
+        canvas.startRenderThread();
+        canvas.render();
+        assertFalse(paintThread.get() == Thread.currentThread());
+        canvas.stopRenderThread();
+        platform.calls.clear();
 
-        @Override
-        public GraphicsConfiguration getGraphicsConfiguration() {
-            return graphicsConfiguration;
+        canvas.render();
+
+        assertSame(Thread.currentThread(), paintThread.get());
+        assertEquals(Arrays.asList("lock", "makeCurrent:42", "makeCurrent:0", "unlock"), platform.calls);
+    }
+
+    @Test
+    void renderThreadPropagatesCallbackFailuresToCaller() {
+        RecordingPlatformCanvas platform = new RecordingPlatformCanvas();
+        IllegalStateException paintFailure = new IllegalStateException("paint failed");
+        TestCanvas canvas = new TestCanvas(platform) {
+            @Override
+            public void paintGL() {
+                throw paintFailure;
+            }
+        };
+        canvas.startRenderThread();
+        try {
+            assertSame(paintFailure, assertThrows(IllegalStateException.class, canvas::render));
+            assertEquals("result", assertDoesNotThrow(() -> canvas.executeInContext(() -> "result")));
+        } finally {
+            canvas.stopRenderThread();
         }
     }
 
-    private static final class TestGraphicsConfiguration extends GraphicsConfiguration {
-        private final AffineTransform transform;
+    @Test
+    void requestRenderCoalescesRequestsMadeBeforeTheNextFrameStarts() throws InterruptedException {
+        RecordingPlatformCanvas platform = new RecordingPlatformCanvas();
+        CountDownLatch firstFrameStarted = new CountDownLatch(1);
+        CountDownLatch releaseFirstFrame = new CountDownLatch(1);
+        CountDownLatch twoFramesPainted = new CountDownLatch(2);
+        AtomicBoolean paintedOnRenderThread = new AtomicBoolean(true);
+        ShowingTestCanvas canvas = new ShowingTestCanvas(platform) {
+            @Override
+            public void paintGL() {
+                paintedOnRenderThread.compareAndSet(true, isRenderThread());
+                firstFrameStarted.countDown();
+                try {
+                    releaseFirstFrame.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                twoFramesPainted.countDown();
+            }
+        };
+        canvas.setSize(10, 10);
+        try {
+            canvas.requestRender();
+            assertTrue(firstFrameStarted.await(5, TimeUnit.SECONDS), "First frame did not start");
+            for (int i = 0; i < 100; i++) {
+                canvas.requestRender();
+            }
+            releaseFirstFrame.countDown();
+            assertTrue(twoFramesPainted.await(5, TimeUnit.SECONDS), "Coalesced frame was not rendered");
+            canvas.stopRenderThread();
 
-        TestGraphicsConfiguration(double scaleX, double scaleY) {
-            transform = AffineTransform.getScaleInstance(scaleX, scaleY);
+            assertEquals(101, canvas.getRequestedFrameCount());
+            assertEquals(2, canvas.getRenderedFrameCount());
+            assertTrue(paintedOnRenderThread.get());
+        } finally {
+            releaseFirstFrame.countDown();
+            canvas.stopRenderThread();
         }
+    }
 
-        @Override
-        public GraphicsDevice getDevice() {
-            return null;
-        }
+    @Test
+    void renderOnEventDispatchThreadIsForwardedToRenderThreadWhenEnabled() throws Exception {
+        RecordingPlatformCanvas platform = new RecordingPlatformCanvas();
+        CountDownLatch releaseFrame = new CountDownLatch(1);
+        CountDownLatch painted = new CountDownLatch(1);
+        AtomicBoolean releasedWhilePainting = new AtomicBoolean();
+        AtomicBoolean paintedOnRenderThread = new AtomicBoolean();
+        ShowingTestCanvas canvas = new ShowingTestCanvas(platform) {
+            @Override
+            public void paintGL() {
+                paintedOnRenderThread.set(isRenderThread());
+                try {
+                    releasedWhilePainting.set(releaseFrame.await(5, TimeUnit.SECONDS));
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                painted.countDown();
+            }
+        };
+        canvas.setSize(10, 10);
+        canvas.setRenderOffEventDispatchThread(true);
+        try {
+            EventQueue.invokeAndWait(canvas::render);
+            releaseFrame.countDown();
 
-        @Override
-        public ColorModel getColorModel() {
-            return ColorModel.getRGBdefault();
+            assertTrue(painted.await(5, TimeUnit.SECONDS), "Forwarded frame was not rendered");
+            assertTrue(releasedWhilePainting.get(), "render() waited for the frame on the event-dispatch thread");
+            assertTrue(paintedOnRenderThread.get());
+            assertEquals(1, canvas.getRequestedFrameCount());
+        } finally {
+            releaseFrame.countDown();
+            canvas.stopRenderThread();
         }
+    }
 
-        @Override
-        public ColorModel getColorModel(int transparency) {
-            return transparency == Transparency.OPAQUE ? ColorModel.getRGBdefault() : null;
-        }
+    @Test
+    void eventDispatchThreadStallIsMeasured() throws Exception {
+        RecordingPlatformCanvas platform = new RecordingPlatformCanvas();
+        TestCanvas canvas = new TestCanvas(platform) {
+            @Override
+            public void paintGL() {
+                try {
+                    Thread.sleep(20L);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        };
 
-        @Override
-        public AffineTransform getDefaultTransform() {
-            return new AffineTransform(transform);
-        }
+        EventQueue.invokeAndWait(canvas::render);
+        long stall = canvas.getLastEventDispatchThreadStallNanos();
+        canvas.render();
 
-        @Override
-        public AffineTransform getNormalizingTransform() {
-            return new AffineTransform();
-        }
+        assertTrue(stall >= TimeUnit.MILLISECONDS.toNanos(20L), "Measured stall of " + stall + " ns");
+        assertEquals(stall, canvas.getTotalEventDispatchThreadStallNanos());
+        assertEquals(stall, canvas.getLastEventDispatchThreadStallNanos());
+    }
 
-        @Override
-        public Rectangle getBounds() {
-            return new Rectangle();
+    @Test
+    void requestRenderSkipsCanvasWithoutPeer() throws InterruptedException {
+        RecordingPlatformCanvas platform = new RecordingPlatformCanvas();
+        TestCanvas canvas = new TestCanvas(platform);
+        try {
+            canvas.requestRender();
+            // Give the immediately scheduled frame a chance to run before stopping discards it.
+            Thread.sleep(50L);
+        } finally {
+            canvas.stopRenderThread();
         }
+
+        assertEquals(1, canvas.getRequestedFrameCount());
+        assertEquals(0, canvas.getRenderedFrameCount());
+        assertTrue(platform.calls.isEmpty());
     }
 
-    private static class RecordingPlatformCanvas implements PlatformGLCanvas {
-        final List<String> calls = Collections.synchronizedList(new ArrayList<>());
-        final CountDownLatch deleteCalled = new CountDownLatch(1);
-        RuntimeException deleteFailure;
-        RuntimeException disposeFailure;
-        RuntimeException framebufferSizeFailure;
-        long makeCurrentFailureContext = Long.MIN_VALUE;
-        long makeCurrentExceptionContext = Long.MIN_VALUE;
-        long currentContext;
-        boolean reportsFramebufferSize = true;
-        int framebufferWidth;
-        int framebufferHeight;
+    @Test
+    void submittedTasksRunInOneBatchAtTheStartOfTheNextFrame() throws Exception {
+        RecordingPlatformCanvas platform = new RecordingPlatformCanvas();
+        TestCanvas canvas = new TestCanvas(platform) {
+            @Override
+            public void initGL() {
+                platform.calls.add("init");
+            }
 
-        @Override
-        public long create(Canvas canvas, GLData data, GLData effective) {
-            calls.add("create");
-            return 42L;
+            @Override
+            public void paintGL() {
+                platform.calls.add("paint");
+            }
+        };
+        List<CompletableFuture<Integer>> results = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            int update = i;
+            results.add(canvas.submit(() -> {
+                platform.calls.add("task");
+                return update;
+            }));
         }
 
-        @Override
-        public boolean deleteContext(long context) {
-            calls.add("delete:" + context);
-            deleteCalled.countDown();
-            if (deleteFailure != null) {
-                throw deleteFailure;
-            }
+        assertFalse(results.get(0).isDone());
+        assertEquals(Collections.emptyList(), platform.calls);
+
+        canvas.render();
+
+        for (int i = 0; i < results.size(); i++) {
+            assertEquals(i, (int) results.get(i).get(0L, TimeUnit.SECONDS));
+        }
+        List<String> expected = new ArrayList<>(Arrays.asList("create", "lock", "makeCurrent:42", "init"));
+        expected.addAll(Collections.nCopies(100, "task"));
+        expected.addAll(Arrays.asList("paint", "makeCurrent:0", "unlock"));
+        assertEquals(expected, platform.calls);
+    }
+
+    @Test
+    void submittedTaskFailureOnlyFailsItsOwnFuture() throws Exception {
+        RecordingPlatformCanvas platform = new RecordingPlatformCanvas();
+        TestCanvas canvas = new TestCanvas(platform);
+        IllegalStateException taskFailure = new IllegalStateException("task failed");
+        CompletableFuture<Void> failing = canvas.submit((Runnable) () -> {
+            throw taskFailure;
+        });
+        CompletableFuture<String> succeeding = canvas.submit(() -> "done");
+
+        canvas.render();
+
+        ExecutionException thrown = assertThrows(ExecutionException.class, () -> failing.get(0L, TimeUnit.SECONDS));
+        assertSame(taskFailure, thrown.getCause());
+        assertEquals("done", succeeding.get(0L, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void renderThreadRunsSubmittedTasksWithoutAFrame() throws Exception {
+        RecordingPlatformCanvas platform = new RecordingPlatformCanvas();
+        platform.reportsDrawableBinding = true;
+        AtomicInteger frames = new AtomicInteger();
+        TestCanvas canvas = new TestCanvas(platform) {
+            @Override
+            public void paintGL() {
+                frames.incrementAndGet();
+            }
+        };
+        canvas.startRenderThread();
+        try {
+            canvas.render();
+            CompletableFuture<Boolean> onRenderThread = canvas.submit(canvas::isRenderThread);
+
+            assertTrue(onRenderThread.get(5L, TimeUnit.SECONDS));
+            assertEquals(1, frames.get());
+        } finally {
+            canvas.stopRenderThread();
+        }
+    }
+
+    @Test
+    void submittedTasksDoNotRunBeforeInitGL() throws Exception {
+        RecordingPlatformCanvas platform = new RecordingPlatformCanvas();
+        AtomicBoolean initialized = new AtomicBoolean();
+        TestCanvas canvas = new TestCanvas(platform) {
+            @Override
+            public void initGL() {
+                initialized.set(true);
+            }
+        };
+        canvas.startRenderThread();
+        try {
+            CompletableFuture<Boolean> sawInitGL = canvas.submit(initialized::get);
+            // Lets the render thread pick up the task, which has to wait for the first frame.
+            canvas.runInContext(() -> {
+            });
+            assertFalse(sawInitGL.isDone());
+
+            canvas.render();
+
+            assertTrue(sawInitGL.get(5L, TimeUnit.SECONDS));
+        } finally {
+            canvas.stopRenderThread();
+        }
+    }
+
+    @Test
+    void disposeCanvasFailsTasksThatHaveNotRun() {
+        RecordingPlatformCanvas platform = new RecordingPlatformCanvas();
+        TestCanvas canvas = new TestCanvas(platform);
+        canvas.render();
+        CompletableFuture<Void> pending = canvas.submit(() -> {
+        });
+
+        canvas.disposeCanvas();
+
+        ExecutionException thrown = assertThrows(ExecutionException.class, () -> pending.get(0L, TimeUnit.SECONDS));
+        assertTrue(thrown.getCause() instanceof IllegalStateException);
+    }
+
+    @Test
+    void tryRenderSkipsCanvasWithoutPeer() {
+        RecordingPlatformCanvas platform = new RecordingPlatformCanvas();
+        TestCanvas canvas = new TestCanvas(platform);
+
+        assertEquals(AWTGLCanvas.RenderResult.NO_PEER, canvas.tryRender());
+
+        assertEquals(1, canvas.getSkippedFrameCount());
+        assertTrue(platform.calls.isEmpty());
+    }
+
+    @Test
+    void tryRenderSkipsWhileAnotherFrameIsInProgress() throws Exception {
+        RecordingPlatformCanvas platform = new RecordingPlatformCanvas();
+        CountDownLatch frameStarted = new CountDownLatch(1);
+        CountDownLatch releaseFrame = new CountDownLatch(1);
+        AtomicInteger frames = new AtomicInteger();
+        DisplayableTestCanvas canvas = new DisplayableTestCanvas(platform) {
+            @Override
+            public void paintGL() {
+                if (frames.incrementAndGet() == 1) {
+                    frameStarted.countDown();
+                    try {
+                        releaseFrame.await(5L, TimeUnit.SECONDS);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+            }
+        };
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        Thread renderer = new Thread(() -> runAndRecordFailure(canvas::render, failure));
+        renderer.start();
+        try {
+            assertTrue(frameStarted.await(5L, TimeUnit.SECONDS), "Frame did not start");
+
+            assertEquals(AWTGLCanvas.RenderResult.BUSY, canvas.tryRender());
+            assertEquals(AWTGLCanvas.RenderResult.BUSY, canvas.tryRender(10L, TimeUnit.MILLISECONDS));
+        } finally {
+            releaseFrame.countDown();
+            renderer.join(5000L);
+        }
+        assertNull(failure.get());
+
+        assertEquals(AWTGLCanvas.RenderResult.RENDERED, canvas.tryRender(5L, TimeUnit.SECONDS));
+        assertEquals(2, frames.get());
+        assertEquals(2, canvas.getSkippedFrameCount());
+    }
+
+    @Test
+    void tryRenderRendersOnRenderThread() {
+        RecordingPlatformCanvas platform = new RecordingPlatformCanvas();
+        AtomicBoolean paintedOnRenderThread = new AtomicBoolean();
+        DisplayableTestCanvas canvas = new DisplayableTestCanvas(platform) {
+            @Override
+            public void paintGL() {
+                paintedOnRenderThread.set(isRenderThread());
+            }
+        };
+        canvas.startRenderThread();
+        try {
+            assertEquals(AWTGLCanvas.RenderResult.RENDERED, canvas.tryRender());
+        } finally {
+            canvas.stopRenderThread();
+        }
+
+        assertTrue(paintedOnRenderThread.get());
+        assertEquals(0, canvas.getSkippedFrameCount());
+    }
+
+    @Test
+    void tryRenderDoesNotWaitForFramePacedOnRenderThread() throws Exception {
+        RecordingPlatformCanvas platform = new RecordingPlatformCanvas();
+        CountDownLatch firstFramePainted = new CountDownLatch(1);
+        DisplayableTestCanvas canvas = new DisplayableTestCanvas(platform) {
+            @Override
+            public void paintGL() {
+                firstFramePainted.countDown();
+            }
+        };
+        canvas.getFramePacer().setTargetFrameRate(0.5);
+        canvas.startRenderThread();
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        Thread renderer = new Thread(() -> {
+            runAndRecordFailure(canvas::render, failure);
+            // Waits for the pacer on the render thread without holding the canvas.
+            runAndRecordFailure(canvas::render, failure);
+        });
+        try {
+            renderer.start();
+            assertTrue(firstFramePainted.await(5L, TimeUnit.SECONDS), "First frame was not painted");
+            Thread.sleep(100L);
+
+            long start = System.nanoTime();
+            assertEquals(AWTGLCanvas.RenderResult.BUSY, canvas.tryRender());
+            assertEquals(AWTGLCanvas.RenderResult.BUSY, canvas.tryRender(10L, TimeUnit.MILLISECONDS));
+            assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(1L), "tryRender waited for the pacer");
+        } finally {
+            renderer.join(5000L);
+            canvas.stopRenderThread();
+        }
+        assertNull(failure.get());
+        assertEquals(2, canvas.getSkippedFrameCount());
+        assertEquals(2, canvas.getPaintedFrameCount());
+    }
+
+    @Test
+    void tryRenderSkipsDisposingCanvas() {
+        RecordingPlatformCanvas platform = new RecordingPlatformCanvas();
+        AtomicReference<AWTGLCanvas.RenderResult> result = new AtomicReference<>();
+        DisplayableTestCanvas canvas = new DisplayableTestCanvas(platform) {
+            @Override
+            protected void disposeGL() {
+                result.set(tryRender());
+            }
+        };
+        canvas.render();
+
+        canvas.disposeCanvas();
+
+        assertEquals(AWTGLCanvas.RenderResult.DISPOSING, result.get());
+        assertEquals(1, canvas.getSkippedFrameCount());
+    }
+
+    @Test
+    void maxFramesInFlightRejectsNegativeLimits() {
+        TestCanvas canvas = new TestCanvas(new RecordingPlatformCanvas());
+
+        assertThrows(IllegalArgumentException.class, () -> canvas.setMaxFramesInFlight(-1));
+        assertEquals(0, canvas.getMaxFramesInFlight());
+    }
+
+    @Test
+    void maxFramesInFlightDoesNotLimitContextsWithoutSyncObjects() {
+        RecordingPlatformCanvas platform = new RecordingPlatformCanvas();
+        TestCanvas canvas = new TestCanvas(platform) {
+            @Override
+            public void paintGL() {
+                swapBuffers();
+            }
+        };
+        canvas.setMaxFramesInFlight(1);
+
+        canvas.render();
+        canvas.render();
+
+        assertEquals(0L, canvas.getTotalFenceWaitNanos());
+        assertEquals(Arrays.asList("create", "lock", "makeCurrent:42", "swapBuffers", "makeCurrent:0", "unlock",
+                "lock", "makeCurrent:42", "swapBuffers", "makeCurrent:0", "unlock"), platform.calls);
+    }
+
+    @Test
+    void capabilitiesOfRequestedOpenGLESContextCannotBeManaged() {
+        TestCanvas canvas = new TestCanvas(new RecordingPlatformCanvas());
+        canvas.data.api = GLData.API.GLES;
+
+        assertThrows(IllegalStateException.class, () -> canvas.setManageCapabilities(true));
+        assertFalse(canvas.isManageCapabilities());
+    }
+
+    @Test
+    void managingCapabilitiesOfOpenGLESContextFailsTheFrame() {
+        RecordingPlatformCanvas platform = new RecordingPlatformCanvas() {
+            @Override
+            public long create(Canvas canvas, GLData data, GLData effective) {
+                effective.api = GLData.API.GLES;
+                return super.create(canvas, data, effective);
+            }
+        };
+        AtomicBoolean painted = new AtomicBoolean();
+        TestCanvas canvas = new TestCanvas(platform) {
+            @Override
+            public void paintGL() {
+                painted.set(true);
+            }
+        };
+        canvas.setManageCapabilities(true);
+
+        assertThrows(IllegalStateException.class, canvas::render);
+
+        assertFalse(painted.get());
+        assertNull(canvas.getCapabilities());
+    }
+
+    @Test
+    void maxFramesInFlightResolvesSyncFunctionsThroughThePlatform() {
+        List<String> resolved = new ArrayList<>();
+        RecordingPlatformCanvas platform = new RecordingPlatformCanvas() {
+            @Override
+            public long create(Canvas canvas, GLData data, GLData effective) {
+                effective.api = GLData.API.GLES;
+                effective.majorVersion = 3;
+                effective.minorVersion = 0;
+                return super.create(canvas, data, effective);
+            }
+
+            @Override
+            public FunctionProvider getFunctionProvider(GLData effective) {
+                assertEquals(GLData.API.GLES, effective.api);
+                return functionName -> {
+                    resolved.add(memASCII(memAddress(functionName)));
+                    return 0L;
+                };
+            }
+        };
+        TestCanvas canvas = new TestCanvas(platform) {
+            @Override
+            public void paintGL() {
+                swapBuffers();
+            }
+        };
+        canvas.setMaxFramesInFlight(1);
+
+        canvas.render();
+        canvas.render();
+
+        assertEquals(Arrays.asList("glFenceSync", "glClientWaitSync", "glDeleteSync"), resolved);
+        assertEquals(0L, canvas.getTotalFenceWaitNanos());
+    }
+
+    @Test
+    void visibilityIsHiddenWithoutPeer() throws InterruptedException {
+        TestCanvas canvas = new TestCanvas(new RecordingPlatformCanvas());
+        canvas.setSize(10, 10);
+
+        assertEquals(AWTGLCanvas.Visibility.HIDDEN, canvas.getVisibility());
+        assertFalse(canvas.awaitVisible(10, TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    void visibilityReportsZeroSizeAndClippingByAncestors() throws InterruptedException {
+        ShowingTestCanvas canvas = new ShowingTestCanvas(new RecordingPlatformCanvas());
+        Panel viewport = new Panel(null);
+        viewport.setSize(100, 100);
+        viewport.add(canvas);
+
+        canvas.setBounds(10, 10, 50, 50);
+        assertEquals(AWTGLCanvas.Visibility.VISIBLE, canvas.getVisibility());
+        assertTrue(canvas.awaitVisible(0, TimeUnit.MILLISECONDS));
+
+        canvas.setBounds(100, 0, 50, 50);
+        assertEquals(AWTGLCanvas.Visibility.CLIPPED, canvas.getVisibility());
+
+        canvas.setBounds(-60, 10, 50, 50);
+        assertEquals(AWTGLCanvas.Visibility.CLIPPED, canvas.getVisibility());
+
+        canvas.setBounds(10, 10, 0, 50);
+        assertEquals(AWTGLCanvas.Visibility.ZERO_SIZE, canvas.getVisibility());
+    }
+
+    @Test
+    void requestRenderWhileHiddenRendersOnceWhenShown() throws InterruptedException {
+        RecordingPlatformCanvas platform = new RecordingPlatformCanvas();
+        CountDownLatch painted = new CountDownLatch(1);
+        ShowingTestCanvas canvas = new ShowingTestCanvas(platform) {
+            @Override
+            public void paintGL() {
+                painted.countDown();
+            }
+        };
+        canvas.setSize(10, 10);
+        canvas.showing = false;
+        try {
+            for (int i = 0; i < 3; i++) {
+                canvas.requestRender();
+            }
+            assertTrue(platform.calls.isEmpty());
+
+            canvas.showing = true;
+            for (ComponentListener l : canvas.getComponentListeners()) {
+                l.componentShown(new ComponentEvent(canvas, ComponentEvent.COMPONENT_SHOWN));
+            }
+
+            assertTrue(painted.await(5, TimeUnit.SECONDS), "Suppressed frame was not rendered");
+        } finally {
+            canvas.stopRenderThread();
+        }
+        assertEquals(3, canvas.getRequestedFrameCount());
+        assertEquals(1, canvas.getRenderedFrameCount());
+    }
+
+    private static void runAndRecordFailure(Runnable action, AtomicReference<Throwable> failure) {
+        try {
+            action.run();
+        } catch (Throwable t) {
+            failure.set(t);
+        }
+    }
+
+    @Test
+    void parkedContextIsReattachedWithoutReinitializing() {
+        RecordingPlatformCanvas platform = new RecordingPlatformCanvas();
+        platform.supportsParking = true;
+        AtomicInteger initGLCalls = new AtomicInteger();
+        AtomicBoolean disposeGLCalled = new AtomicBoolean();
+        TestCanvas canvas = new TestCanvas(platform) {
+            @Override
+            public void initGL() {
+                initGLCalls.incrementAndGet();
+            }
+
+            @Override
+            protected void disposeGL() {
+                disposeGLCalled.set(true);
+            }
+        };
+        canvas.setContextParkingTimeout(1L, TimeUnit.MINUTES);
+        canvas.render();
+        platform.calls.clear();
+
+        canvas.removeNotify();
+
+        assertTrue(canvas.isContextParked());
+        assertEquals(42L, canvas.context);
+        assertEquals(Collections.singletonList("park:42"), platform.calls);
+
+        canvas.render();
+
+        assertFalse(canvas.isContextParked());
+        assertEquals(1, initGLCalls.get());
+        assertFalse(disposeGLCalled.get());
+        assertEquals(Arrays.asList("park:42", "reattach:42", "lock", "makeCurrent:42", "makeCurrent:0", "unlock"),
+                platform.calls);
+    }
+
+    @Test
+    void incompatiblePeerReplacesParkedContext() {
+        RecordingPlatformCanvas platform = new RecordingPlatformCanvas();
+        platform.supportsParking = true;
+        platform.reattachCompatible = false;
+        AtomicInteger initGLCalls = new AtomicInteger();
+        TestCanvas canvas = new TestCanvas(platform) {
+            @Override
+            public void initGL() {
+                initGLCalls.incrementAndGet();
+            }
+        };
+        canvas.setContextParkingTimeout(1L, TimeUnit.MINUTES);
+        canvas.render();
+        canvas.removeNotify();
+        platform.calls.clear();
+
+        canvas.render();
+
+        assertFalse(canvas.isContextParked());
+        assertEquals(2, initGLCalls.get());
+        assertEquals(Arrays.asList("reattach:42", "delete:42", "dispose", "create", "lock", "makeCurrent:42",
+                "makeCurrent:0", "unlock"), platform.calls);
+    }
+
+    @Test
+    void parkedContextIsDeletedWithoutDisposeGLAfterTimeout() throws Exception {
+        RecordingPlatformCanvas platform = new RecordingPlatformCanvas();
+        platform.supportsParking = true;
+        AtomicBoolean disposeGLCalled = new AtomicBoolean();
+        TestCanvas canvas = new TestCanvas(platform) {
+            @Override
+            protected void disposeGL() {
+                disposeGLCalled.set(true);
+            }
+        };
+        canvas.setContextParkingTimeout(10L, TimeUnit.MILLISECONDS);
+        canvas.render();
+
+        canvas.removeNotify();
+
+        assertTrue(platform.deleteCalled.await(5L, TimeUnit.SECONDS));
+        assertFalse(canvas.isContextParked());
+        assertFalse(disposeGLCalled.get());
+        assertEquals(0L, canvas.context);
+    }
+
+    @Test
+    void parkedContextRunsDisposeGLWithoutDrawableAfterTimeout() throws Exception {
+        RecordingPlatformCanvas platform = new RecordingPlatformCanvas();
+        platform.supportsParking = true;
+        platform.supportsBindingWithoutDrawable = true;
+        AtomicReference<Long> currentInDisposeGL = new AtomicReference<>();
+        TestCanvas canvas = new TestCanvas(platform) {
+            @Override
+            protected void disposeGL() {
+                currentInDisposeGL.set(platform.currentContext);
+            }
+        };
+        canvas.setContextParkingTimeout(10L, TimeUnit.MILLISECONDS);
+        canvas.render();
+        platform.calls.clear();
+
+        canvas.removeNotify();
+
+        assertTrue(platform.deleteCalled.await(5L, TimeUnit.SECONDS));
+        assertEquals(42L, (long) currentInDisposeGL.get());
+        // The platform canvas may still be disposed after the deletion.
+        assertEquals(Arrays.asList("park:42", "makeCurrentWithoutDrawable:42", "makeCurrentWithoutDrawable:0",
+                "delete:42"), new ArrayList<>(platform.calls).subList(0, 4));
+    }
+
+    @Test
+    void disposingParkedContextRunsDisposeGLWithoutDrawable() {
+        RecordingPlatformCanvas platform = new RecordingPlatformCanvas();
+        platform.supportsParking = true;
+        platform.supportsBindingWithoutDrawable = true;
+        AtomicInteger disposeGLCalls = new AtomicInteger();
+        TestCanvas canvas = new TestCanvas(platform) {
+            @Override
+            protected void disposeGL() {
+                disposeGLCalls.incrementAndGet();
+            }
+        };
+        canvas.setContextParkingTimeout(1L, TimeUnit.MINUTES);
+        canvas.render();
+        canvas.removeNotify();
+        platform.calls.clear();
+
+        canvas.disposeCanvas();
+
+        assertEquals(1, disposeGLCalls.get());
+        assertFalse(canvas.isContextParked());
+        assertEquals(Arrays.asList("makeCurrentWithoutDrawable:42", "makeCurrentWithoutDrawable:0", "delete:42",
+                "dispose"), platform.calls);
+    }
+
+    @Test
+    void removeNotifyDisposesContextWhenParkingIsDisabled() {
+        RecordingPlatformCanvas platform = new RecordingPlatformCanvas();
+        platform.supportsParking = true;
+        TestCanvas canvas = new TestCanvas(platform);
+        canvas.render();
+        platform.calls.clear();
+
+        canvas.removeNotify();
+
+        assertFalse(canvas.isContextParked());
+        assertEquals(0L, canvas.context);
+        assertEquals(Arrays.asList("lock", "makeCurrent:42", "makeCurrent:0", "unlock", "delete:42", "dispose"),
+                platform.calls);
+    }
+
+    @Test
+    void deferredDisposalDeletesContextOffTheRemovingThread() throws Exception {
+        RecordingPlatformCanvas platform = new RecordingPlatformCanvas();
+        platform.supportsParking = true;
+        AtomicBoolean disposeGLCalled = new AtomicBoolean();
+        AtomicReference<Thread> deletingThread = new AtomicReference<>();
+        TestCanvas canvas = new TestCanvas(platform) {
+            @Override
+            protected void disposeGL() {
+                disposeGLCalled.set(true);
+            }
+        };
+        platform.onDelete = () -> deletingThread.set(Thread.currentThread());
+        canvas.setDeferredDisposalTimeout(5L, TimeUnit.SECONDS);
+        canvas.render();
+        platform.calls.clear();
+
+        canvas.removeNotify();
+        canvas.getDisposalFuture().get(5L, TimeUnit.SECONDS);
+
+        assertNotSame(Thread.currentThread(), deletingThread.get());
+        assertFalse(disposeGLCalled.get());
+        assertFalse(canvas.isContextParked());
+        assertEquals(0L, canvas.context);
+        assertEquals(Arrays.asList("park:42", "delete:42", "dispose"), platform.calls);
+    }
+
+    @Test
+    void deferredDisposalRunsDisposeGLWithoutDrawable() throws Exception {
+        RecordingPlatformCanvas platform = new RecordingPlatformCanvas();
+        platform.supportsParking = true;
+        platform.supportsBindingWithoutDrawable = true;
+        AtomicReference<Long> currentInDisposeGL = new AtomicReference<>();
+        TestCanvas canvas = new TestCanvas(platform) {
+            @Override
+            protected void disposeGL() {
+                currentInDisposeGL.set(platform.currentContext);
+            }
+        };
+        canvas.setDeferredDisposalTimeout(5L, TimeUnit.SECONDS);
+        canvas.render();
+        platform.calls.clear();
+
+        canvas.removeNotify();
+        canvas.getDisposalFuture().get(5L, TimeUnit.SECONDS);
+
+        assertEquals(42L, (long) currentInDisposeGL.get());
+        assertEquals(Arrays.asList("park:42", "makeCurrentWithoutDrawable:42", "makeCurrentWithoutDrawable:0",
+                "delete:42", "dispose"), platform.calls);
+    }
+
+    @Test
+    void completedDeferredDisposalCancelsItsTimeout() throws Exception {
+        RecordingPlatformCanvas platform = new RecordingPlatformCanvas();
+        platform.supportsParking = true;
+        TestCanvas canvas = new TestCanvas(platform);
+        canvas.setDeferredDisposalTimeout(1L, TimeUnit.HOURS);
+        canvas.render();
+        int queuedTimeouts = AWTGLCanvas.DisposalWatchdog.THREAD.getQueuedTaskCount();
+
+        canvas.removeNotify();
+        canvas.getDisposalFuture().get(5L, TimeUnit.SECONDS);
+
+        assertEquals(queuedTimeouts, AWTGLCanvas.DisposalWatchdog.THREAD.getQueuedTaskCount());
+    }
+
+    @Test
+    void deferredDisposalReportsTimeout() throws Exception {
+        RecordingPlatformCanvas platform = new RecordingPlatformCanvas();
+        platform.supportsParking = true;
+        CountDownLatch releaseDeletion = new CountDownLatch(1);
+        platform.onDelete = () -> {
+            try {
+                releaseDeletion.await(5L, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        };
+        TestCanvas canvas = new TestCanvas(platform);
+        canvas.setDeferredDisposalTimeout(10L, TimeUnit.MILLISECONDS);
+        canvas.render();
+
+        canvas.removeNotify();
+        try {
+            ExecutionException thrown = assertThrows(ExecutionException.class,
+                    () -> canvas.getDisposalFuture().get(5L, TimeUnit.SECONDS));
+            assertTrue(thrown.getCause() instanceof TimeoutException);
+        } finally {
+            releaseDeletion.countDown();
+        }
+        assertTrue(platform.deleteCalled.await(5L, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void renderingBeforeDeferredDisposalCreatesNewContext() throws Exception {
+        // Keeps the shared background thread busy with another canvas, so that the deletion cannot run first.
+        RecordingPlatformCanvas blockingPlatform = new RecordingPlatformCanvas();
+        blockingPlatform.supportsParking = true;
+        CountDownLatch releaseDeletion = new CountDownLatch(1);
+        blockingPlatform.onDelete = () -> {
+            try {
+                releaseDeletion.await(5L, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        };
+        TestCanvas blockingCanvas = new TestCanvas(blockingPlatform);
+        blockingCanvas.setDeferredDisposalTimeout(5L, TimeUnit.SECONDS);
+        blockingCanvas.render();
+        RecordingPlatformCanvas platform = new RecordingPlatformCanvas();
+        platform.supportsParking = true;
+        AtomicInteger initGLCalls = new AtomicInteger();
+        TestCanvas canvas = new TestCanvas(platform) {
+            @Override
+            public void initGL() {
+                initGLCalls.incrementAndGet();
+            }
+        };
+        canvas.setDeferredDisposalTimeout(5L, TimeUnit.SECONDS);
+        canvas.render();
+        try {
+            blockingCanvas.removeNotify();
+            canvas.removeNotify();
+            platform.calls.clear();
+
+            canvas.render();
+
+            assertTrue(canvas.getDisposalFuture().isDone());
+            assertEquals(2, initGLCalls.get());
+            assertEquals(Arrays.asList("delete:42", "dispose", "create", "lock", "makeCurrent:42", "makeCurrent:0",
+                    "unlock"), platform.calls);
+        } finally {
+            releaseDeletion.countDown();
+        }
+        blockingCanvas.getDisposalFuture().get(5L, TimeUnit.SECONDS);
+        canvas.getDisposalFuture().get(5L, TimeUnit.SECONDS);
+    }
+
+    @Test
+    void prepareCreatesContextWithoutInitializingOrKeepingItCurrent() {
+        RecordingPlatformCanvas platform = new RecordingPlatformCanvas();
+        AtomicInteger initGLCalls = new AtomicInteger();
+        DisplayableTestCanvas canvas = new DisplayableTestCanvas(platform) {
+            @Override
+            public void initGL() {
+                initGLCalls.incrementAndGet();
+            }
+        };
+
+        canvas.prepare(false);
+
+        assertEquals(42L, canvas.context);
+        assertEquals(0, initGLCalls.get());
+        assertFalse(platform.isCurrent(42L));
+        assertEquals(Collections.singletonList("create"), platform.calls);
+
+        canvas.render();
+
+        assertEquals(1, initGLCalls.get());
+        assertEquals(Arrays.asList("create", "lock", "makeCurrent:42", "makeCurrent:0", "unlock"), platform.calls);
+    }
+
+    @Test
+    void prepareInvokesInitGLOnlyOnce() {
+        RecordingPlatformCanvas platform = new RecordingPlatformCanvas();
+        AtomicInteger initGLCalls = new AtomicInteger();
+        AtomicInteger paintGLCalls = new AtomicInteger();
+        DisplayableTestCanvas canvas = new DisplayableTestCanvas(platform) {
+            @Override
+            public void initGL() {
+                initGLCalls.incrementAndGet();
+            }
+
+            @Override
+            public void paintGL() {
+                paintGLCalls.incrementAndGet();
+            }
+        };
+
+        canvas.prepare(true);
+        canvas.prepare(true);
+        canvas.render();
+
+        assertEquals(1, initGLCalls.get());
+        assertEquals(1, paintGLCalls.get());
+        assertFalse(platform.isCurrent(42L));
+    }
+
+    @Test
+    void prepareRequiresNativePeer() {
+        RecordingPlatformCanvas platform = new RecordingPlatformCanvas();
+        DisplayableTestCanvas canvas = new DisplayableTestCanvas(platform);
+        canvas.displayable = false;
+
+        IllegalStateException failure = assertThrows(IllegalStateException.class, () -> canvas.prepare(false));
+
+        assertEquals("Canvas is not displayable", failure.getMessage());
+        assertTrue(platform.calls.isEmpty());
+    }
+
+    @Test
+    void prepareAsyncInitializesOnRenderThread() throws Exception {
+        RecordingPlatformCanvas platform = new RecordingPlatformCanvas();
+        AtomicReference<Thread> initThread = new AtomicReference<>();
+        DisplayableTestCanvas canvas = new DisplayableTestCanvas(platform) {
+            @Override
+            public void initGL() {
+                initThread.set(Thread.currentThread());
+            }
+        };
+        canvas.startRenderThread();
+        try {
+            canvas.prepareAsync(true).get(5L, TimeUnit.SECONDS);
+
+            assertEquals(42L, canvas.context);
+            assertTrue(canvas.initCalled);
+            assertNotSame(Thread.currentThread(), initThread.get());
+        } finally {
+            canvas.stopRenderThread();
+        }
+    }
+
+    @Test
+    void prepareAsyncLeavesInitGLToFirstFrameWithoutRenderThread() throws Exception {
+        RecordingPlatformCanvas platform = new RecordingPlatformCanvas();
+        AtomicReference<Thread> initThread = new AtomicReference<>();
+        DisplayableTestCanvas canvas = new DisplayableTestCanvas(platform) {
+            @Override
+            public void initGL() {
+                initThread.set(Thread.currentThread());
+            }
+        };
+
+        canvas.prepareAsync(true).get(5L, TimeUnit.SECONDS);
+
+        assertEquals(42L, canvas.context);
+        assertFalse(canvas.initCalled);
+
+        canvas.render();
+
+        assertSame(Thread.currentThread(), initThread.get());
+    }
+
+    @Test
+    void prepareAsyncReportsFailure() {
+        RecordingPlatformCanvas platform = new RecordingPlatformCanvas();
+        IllegalStateException initFailure = new IllegalStateException("initGL failed");
+        DisplayableTestCanvas canvas = new DisplayableTestCanvas(platform) {
+            @Override
+            public void initGL() {
+                throw initFailure;
+            }
+        };
+        canvas.startRenderThread();
+        try {
+            ExecutionException failure = assertThrows(ExecutionException.class,
+                    () -> canvas.prepareAsync(true).get(5L, TimeUnit.SECONDS));
+
+            assertSame(initFailure, failure.getCause());
+            assertFalse(canvas.initCalled);
+        } finally {
+            canvas.stopRenderThread();
+        }
+    }
+
+    @Test
+    void prepareAsyncWaitsForNativePeer() {
+        RecordingPlatformCanvas platform = new RecordingPlatformCanvas();
+        DisplayableTestCanvas canvas = new DisplayableTestCanvas(platform);
+        canvas.displayable = false;
+
+        CompletableFuture<Void> first = canvas.prepareAsync(false);
+        CompletableFuture<Void> second = canvas.prepareAsync(true);
+
+        assertSame(first, second);
+        assertFalse(first.isDone());
+        assertEquals(0L, canvas.context);
+    }
+
+    private static class TestCanvas extends AWTGLCanvas {
+        TestCanvas(PlatformGLCanvas platformCanvas) {
+            this.platformCanvas = platformCanvas;
+        }
+
+        @Override
+        public void initGL() {
+        }
+
+        @Override
+        public void paintGL() {
+        }
+    }
+
+    private static class ShowingTestCanvas extends TestCanvas {
+        volatile boolean showing = true;
+
+        ShowingTestCanvas(PlatformGLCanvas platformCanvas) {
+            super(platformCanvas);
+        }
+
+        @Override
+        public boolean isShowing() {
+            return showing;
+        }
+    }
+
+    private static class DisplayableTestCanvas extends TestCanvas {
+        volatile boolean displayable = true;
+
+        DisplayableTestCanvas(PlatformGLCanvas platformCanvas) {
+            super(platformCanvas);
+        }
+
+        @Override
+        public boolean isDisplayable() {
+            return displayable;
+        }
+    }
+
+    private static final class ScaledTestCanvas extends TestCanvas {
+        private final int width;
+        private final int height;
+        private GraphicsConfiguration graphicsConfiguration;
+
+        ScaledTestCanvas(PlatformGLCanvas platformCanvas, int width, int height, double scaleX, double scaleY) {
+            super(platformCanvas);
+            this.width = width;
+            this.height = height;
+            this.graphicsConfiguration = new TestGraphicsConfiguration(scaleX, scaleY);
+        }
+
+        @Override
+        public int getWidth() {
+            return width;
+        }
+
+        @Override
+        public int getHeight() {
+            return height;
+        }
+
+        @Override
+        public GraphicsConfiguration getGraphicsConfiguration() {
+            return graphicsConfiguration;
+        }
+    }
+
+    private static final class TestGraphicsConfiguration extends GraphicsConfiguration {
+        private final AffineTransform transform;
+
+        TestGraphicsConfiguration(double scaleX, double scaleY) {
+            transform = AffineTransform.getScaleInstance(scaleX, scaleY);
+        }
+
+        @Override
+        public GraphicsDevice getDevice() {
+            return null;
+        }
+
+        @Override
+        public ColorModel getColorModel() {
+            return ColorModel.getRGBdefault();
+        }
+
+        @Override
+        public ColorModel getColorModel(int transparency) {
+            return transparency == Transparency.OPAQUE ? ColorModel.getRGBdefault() : null;
+        }
+
+        @Override
+        public AffineTransform getDefaultTransform() {
+            return new AffineTransform(transform);
+        }
+
+        @Override
+        public AffineTransform getNormalizingTransform() {
+            return new AffineTransform();
+        }
+
+        @Override
+        public Rectangle getBounds() {
+            return new Rectangle();
+        }
+    }
+
+    private static class RecordingPlatformCanvas implements PlatformGLCanvas {
+        final List<String> calls = Collections.synchronizedList(new ArrayList<>());
+        final CountDownLatch deleteCalled = new CountDownLatch(1);
+        volatile Runnable onDelete;
+        RuntimeException deleteFailure;
+        RuntimeException disposeFailure;
+        RuntimeException framebufferSizeFailure;
+        long makeCurrentFailureContext = Long.MIN_VALUE;
+        long makeCurrentExceptionContext = Long.MIN_VALUE;
+        long currentContext;
+        boolean reportsDrawableBinding;
+        boolean supportsParking;
+        boolean supportsBindingWithoutDrawable;
+        boolean supportsUnlockedRendering;
+        boolean reattachCompatible = true;
+        boolean reportsFramebufferSize = true;
+        int framebufferWidth;
+        int framebufferHeight;
+        volatile int framebufferSizeInvalidations;
+        long framebufferSizeQueries;
+
+        @Override
+        public long create(Canvas canvas, GLData data, GLData effective) {
+            calls.add("create");
+            return 42L;
+        }
+
+        @Override
+        public boolean deleteContext(long context) {
+            calls.add("delete:" + context);
+            if (onDelete != null) {
+                onDelete.run();
+            }
+            deleteCalled.countDown();
+            if (deleteFailure != null) {
+                throw deleteFailure;
+            }
             return true;
         }
 
@@ -817,6 +2028,36 @@ class AWTGLCanvasLifecycleTest {
             return currentContext == context;
         }
 
+        @Override
+        public boolean isCurrentOnDrawable(long context) {
+            return reportsDrawableBinding && currentContext == context;
+        }
+
+        @Override
+        public boolean park(long context) {
+            if (!supportsParking) {
+                return false;
+            }
+            calls.add("park:" + context);
+            return true;
+        }
+
+        @Override
+        public boolean makeCurrentWithoutDrawable(long context) {
+            if (!supportsBindingWithoutDrawable) {
+                return false;
+            }
+            calls.add("makeCurrentWithoutDrawable:" + context);
+            currentContext = context;
+            return true;
+        }
+
+        @Override
+        public boolean reattach(long context) {
+            calls.add("reattach:" + context);
+            return reattachCompatible;
+        }
+
         @Override
         public boolean swapBuffers() {
             calls.add("swapBuffers");
@@ -828,6 +2069,11 @@ class AWTGLCanvasLifecycleTest {
             return false;
         }
 
+        @Override
+        public boolean supportsUnlockedRendering() {
+            return supportsUnlockedRendering;
+        }
+
         @Override
         public boolean getFramebufferSize(int[] size) {
             if (framebufferSizeFailure != null) {
@@ -841,6 +2087,16 @@ class AWTGLCanvasLifecycleTest {
             return true;
         }
 
+        @Override
+        public void invalidateFramebufferSize() {
+            framebufferSizeInvalidations++;
+        }
+
+        @Override
+        public long getFramebufferSizeQueries() {
+            return framebufferSizeQueries;
+        }
+
         @Override
         public void lock() throws AWTException {
             calls.add("lock");
@@ -0,0 +1,68 @@
+package org.lwjgl.opengl.awt;
+
+import org.junit.jupiter.api.Test;
+import org.lwjgl.BufferUtils;
+import org.lwjgl.PointerBuffer;
+import org.lwjgl.opengl.GLCapabilities;
+import org.lwjgl.system.FunctionProvider;
+
+import java.lang.reflect.Constructor;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.function.IntFunction;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+class CapabilitiesCacheTest {
+
+    @Test
+    void equalContextsProduceEqualKeys() {
+        List<Object> first = CapabilitiesCache.key("Vendor", "Renderer", "4.6.0", 1, 0);
+        List<Object> second = CapabilitiesCache.key("Vendor", "Renderer", "4.6.0", 1, 0);
+
+        assertEquals(first, second);
+        assertEquals(first.hashCode(), second.hashCode());
+    }
+
+    @Test
+    void rendererVersionProfileAndFlagsDistinguishKeys() {
+        List<Object> key = CapabilitiesCache.key("Vendor", "Renderer", "4.6.0", 1, 0);
+
+        assertNotEquals(key, CapabilitiesCache.key("Other", "Renderer", "4.6.0", 1, 0));
+        assertNotEquals(key, CapabilitiesCache.key("Vendor", "Other", "4.6.0", 1, 0));
+        assertNotEquals(key, CapabilitiesCache.key("Vendor", "Renderer", "4.5.0", 1, 0));
+        assertNotEquals(key, CapabilitiesCache.key("Vendor", "Renderer", "4.6.0", 2, 0));
+        assertNotEquals(key, CapabilitiesCache.key("Vendor", "Renderer", "4.6.0", 1, 2));
+    }
+
+    @Test
+    void firstStoredValueIsShared() throws Exception {
+        CapabilitiesCache cache = new CapabilitiesCache();
+        List<Object> key = CapabilitiesCache.key("Vendor", "Renderer", "3.3.0", 1, 0);
+        assertNull(cache.get(key));
+
+        GLCapabilities first = capabilitiesWithoutFunctions();
+        assertSame(first, cache.putIfAbsent(key, first));
+        assertSame(first, cache.putIfAbsent(CapabilitiesCache.key("Vendor", "Renderer", "3.3.0", 1, 0),
+                capabilitiesWithoutFunctions()));
+        assertSame(first, cache.get(key));
+        assertEquals(1, cache.size());
+    }
+
+    /**
+     * Capabilities are normally only created for a current context. Instances without any function are enough to tell
+     * them apart.
+     */
+    private static GLCapabilities capabilitiesWithoutFunctions() throws Exception {
+        Constructor<GLCapabilities> constructor = GLCapabilities.class.getDeclaredConstructor(
+                FunctionProvider.class, Set.class, boolean.class, IntFunction.class);
+        constructor.setAccessible(true);
+        FunctionProvider noFunctions = functionName -> 0L;
+        IntFunction<PointerBuffer> bufferFactory = BufferUtils::createPointerBuffer;
+        return constructor.newInstance(noFunctions, Collections.emptySet(), false, bufferFactory);
+    }
+}
@@ -0,0 +1,73 @@
+package org.lwjgl.opengl.awt;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+class ConfigCacheTest {
+
+    @Test
+    void equalAttributesProduceEqualKeys() {
+        GLData first = new GLData();
+        first.samples = 4;
+        GLData second = new GLData();
+        second.samples = 4;
+
+        assertEquals(ConfigCache.key(1L, 0, 33L, first, 0), ConfigCache.key(1L, 0, 33L, second, 0));
+        assertEquals(ConfigCache.key(1L, 0, 33L, first, 0).hashCode(),
+                ConfigCache.key(1L, 0, 33L, second, 0).hashCode());
+    }
+
+    @Test
+    void shareContextDoesNotAffectKey() {
+        GLData data = new GLData();
+        ConfigCache.Key unshared = ConfigCache.key(1L, 0, 33L, data, 0);
+        data.shareContext = new AWTGLCanvas(new GLData()) {
+            @Override
+            public void initGL() {
+            }
+
+            @Override
+            public void paintGL() {
+            }
+        };
+
+        assertEquals(unshared, ConfigCache.key(1L, 0, 33L, data, 0));
+    }
+
+    @Test
+    void displayScreenVisualVariantAndAttributesDistinguishKeys() {
+        GLData data = new GLData();
+        ConfigCache.Key key = ConfigCache.key(1L, 0, 33L, data, 0);
+
+        assertNotEquals(key, ConfigCache.key(2L, 0, 33L, data, 0));
+        assertNotEquals(key, ConfigCache.key(1L, 1, 33L, data, 0));
+        assertNotEquals(key, ConfigCache.key(1L, 0, 34L, data, 0));
+        assertNotEquals(key, ConfigCache.key(1L, 0, 33L, data, 1));
+        GLData deeper = new GLData();
+        deeper.depthSize = 32;
+        assertNotEquals(key, ConfigCache.key(1L, 0, 33L, deeper, 0));
+        GLData swapped = new GLData();
+        swapped.swapInterval = 1;
+        assertNotEquals(key, ConfigCache.key(1L, 0, 33L, swapped, 0));
+        GLData noError = new GLData();
+        noError.noError = true;
+        assertNotEquals(key, ConfigCache.key(1L, 0, 33L, noError, 0));
+    }
+
+    @Test
+    void firstStoredValueWins() {
+        ConfigCache<String> cache = new ConfigCache<>();
+        ConfigCache.Key key = ConfigCache.key(1L, 0, 33L, new GLData(), 0);
+        assertNull(cache.get(key));
+
+        String first = "first";
+        assertSame(first, cache.putIfAbsent(key, first));
+        assertSame(first, cache.putIfAbsent(key, "second"));
+        assertSame(first, cache.get(key));
+        assertEquals(1, cache.size());
+    }
+}
@@ -0,0 +1,212 @@
+package org.lwjgl.opengl.awt;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ContextVersionMemoTest {
+
+    @Test
+    void prefersRememberedVersion() {
+        ContextVersionMemo memo = new ContextVersionMemo(null);
+        GLData data = highest();
+        List<GLUtil.ContextVersion> candidates = GLUtil.contextVersionCandidates(data, 4, 6);
+        assertNull(memo.preferred(1L, "driver", data, candidates));
+
+        memo.succeeded(1L, "driver", data, candidates.get(8), () -> "renderer");
+
+        assertSame(candidates.get(8), memo.preferred(1L, "driver", data, candidates));
+    }
+
+    @Test
+    void keepsTheHighestSuccessfulVersion() {
+        ContextVersionMemo memo = new ContextVersionMemo(null);
+        GLData data = highest();
+        List<GLUtil.ContextVersion> candidates = GLUtil.contextVersionCandidates(data, 4, 6);
+        memo.succeeded(1L, "driver", data, candidates.get(7), () -> "renderer");
+        memo.succeeded(1L, "driver", data, candidates.get(8), () -> "renderer");
+
+        assertEquals("3.3", memo.preferred(1L, "driver", data, candidates).toString());
+    }
+
+    @Test
+    void versionsAreRememberedPerDisplayDriverAndContextAttributes() {
+        ContextVersionMemo memo = new ContextVersionMemo(null);
+        GLData data = highest();
+        List<GLUtil.ContextVersion> candidates = GLUtil.contextVersionCandidates(data, 4, 6);
+        memo.succeeded(1L, "driver", data, candidates.get(7), () -> "renderer");
+
+        assertNull(memo.preferred(2L, "driver", data, candidates));
+        assertNull(memo.preferred(1L, "other driver", data, candidates));
+        GLData debug = highest();
+        debug.debug = true;
+        assertNull(memo.preferred(1L, "driver", debug, candidates));
+    }
+
+    @Test
+    void rememberedVersionOutsideTheCandidatesIsIgnored() {
+        ContextVersionMemo memo = new ContextVersionMemo(null);
+        GLData data = new GLData();
+        data.versionPolicy = GLData.VersionPolicy.HIGHEST;
+        memo.succeeded(1L, "driver", data, GLUtil.contextVersionCandidates(data, 4, 6).get(16), () -> "renderer");
+        data.versionPolicy = GLData.VersionPolicy.AT_LEAST;
+        data.majorVersion = 3;
+        data.minorVersion = 0;
+        List<GLUtil.ContextVersion> candidates = GLUtil.contextVersionCandidates(data, 4, 6);
+
+        assertNull(memo.preferred(1L, "driver", data, candidates));
+    }
+
+    @Test
+    void persistedVersionIsTriedFirstByAnotherProcess(@TempDir Path directory) {
+        Path path = directory.resolve("capabilities.properties");
+        GLData data = highest();
+        List<GLUtil.ContextVersion> candidates = GLUtil.contextVersionCandidates(data, 4, 6);
+        new ContextVersionMemo(new CapabilityCacheFile(path)).succeeded(1L, "driver", data, candidates.get(7),
+                () -> "renderer");
+
+        ContextVersionMemo restarted = new ContextVersionMemo(new CapabilityCacheFile(path));
+
+        assertEquals("3.3", restarted.preferred(2L, "driver", data, candidates).toString());
+        assertNull(restarted.preferred(2L, "other driver", data, candidates));
+    }
+
+    @Test
+    void versionsCreatedByThisProcessAreVerifiedWithoutReadingTheRenderer() {
+        ContextVersionMemo memo = new ContextVersionMemo(null);
+        GLData data = highest();
+        List<GLUtil.ContextVersion> candidates = GLUtil.contextVersionCandidates(data, 4, 6);
+        assertFalse(memo.isPreferredVerified(1L, "driver", data, () -> "renderer"));
+
+        memo.succeeded(1L, "driver", data, candidates.get(7), () -> "renderer");
+
+        assertTrue(memo.isPreferredVerified(1L, "driver", data, () -> {
+            throw new AssertionError("Renderer read for a version created by this process");
+        }));
+    }
+
+    @Test
+    void persistedVersionIsVerifiedByMatchingRendererStrings(@TempDir Path directory) {
+        Path path = directory.resolve("capabilities.properties");
+        GLData data = highest();
+        List<GLUtil.ContextVersion> candidates = GLUtil.contextVersionCandidates(data, 4, 6);
+        new ContextVersionMemo(new CapabilityCacheFile(path)).succeeded(1L, "driver", data, candidates.get(7),
+                () -> "renderer 4.6");
+        ContextVersionMemo restarted = new ContextVersionMemo(new CapabilityCacheFile(path));
+
+        assertTrue(restarted.isPreferredVerified(1L, "driver", data, () -> "renderer 4.6"));
+        assertFalse(restarted.isPreferredVerified(1L, "driver", data, () -> "renderer 4.7"));
+        assertFalse(restarted.isPreferredVerified(1L, "driver", data, () -> null));
+    }
+
+    @Test
+    void matchingPersistedEntryCostsOneAttempt(@TempDir Path directory) throws Exception {
+        Path path = directory.resolve("capabilities.properties");
+        GLData data = highest();
+        List<GLUtil.ContextVersion> candidates = GLUtil.contextVersionCandidates(data, 4, 6);
+        new ContextVersionMemo(new CapabilityCacheFile(path)).succeeded(1L, "driver", data, candidates.get(7),
+                () -> "renderer");
+        ContextVersionMemo restarted = new ContextVersionMemo(new CapabilityCacheFile(path));
+        List<GLUtil.ContextVersion> attempted = new ArrayList<>();
+
+        ContextVersionProbe probe = ContextVersionProbe.probe(candidates,
+                restarted.preferred(2L, "driver", data, candidates),
+                created -> restarted.isPreferredVerified(2L, "driver", data, () -> "renderer"),
+                version -> {
+                    attempted.add(version);
+                    return 1L;
+                },
+                created -> {
+                });
+
+        assertEquals(1, probe.attempts);
+        assertEquals("3.3", probe.version.toString());
+        assertEquals(Collections.singletonList(candidates.get(7)), attempted);
+    }
+
+    @Test
+    void changedRendererSearchesAbovePersistedEntry(@TempDir Path directory) throws Exception {
+        Path path = directory.resolve("capabilities.properties");
+        GLData data = highest();
+        List<GLUtil.ContextVersion> candidates = GLUtil.contextVersionCandidates(data, 4, 6);
+        new ContextVersionMemo(new CapabilityCacheFile(path)).succeeded(1L, "driver", data, candidates.get(7),
+                () -> "old renderer");
+        ContextVersionMemo restarted = new ContextVersionMemo(new CapabilityCacheFile(path));
+
+        ContextVersionProbe probe = ContextVersionProbe.probe(candidates,
+                restarted.preferred(2L, "driver", data, candidates),
+                created -> restarted.isPreferredVerified(2L, "driver", data, () -> "new renderer"),
+                version -> 1L,
+                created -> {
+                });
+
+        assertEquals("4.6", probe.version.toString());
+        assertTrue(probe.attempts > 1);
+    }
+
+    @Test
+    void persistedEntryIsReplacedByALowerVersionOfANewRenderer(@TempDir Path directory) throws Exception {
+        Path path = directory.resolve("capabilities.properties");
+        GLData data = highest();
+        List<GLUtil.ContextVersion> candidates = GLUtil.contextVersionCandidates(data, 4, 6);
+        new ContextVersionMemo(new CapabilityCacheFile(path)).succeeded(1L, "driver", data, candidates.get(2),
+                () -> "old renderer");
+
+        new ContextVersionMemo(new CapabilityCacheFile(path)).succeeded(1L, "driver", data, candidates.get(7),
+                () -> "new renderer");
+
+        String contents = new String(Files.readAllBytes(path), StandardCharsets.ISO_8859_1);
+        assertTrue(contents.contains("3.3|new renderer"));
+        assertFalse(contents.contains("old renderer"));
+    }
+
+    @Test
+    void persistedEntryIsRewrittenWhenTheRendererChanges(@TempDir Path directory) throws Exception {
+        Path path = directory.resolve("capabilities.properties");
+        GLData data = highest();
+        List<GLUtil.ContextVersion> candidates = GLUtil.contextVersionCandidates(data, 4, 6);
+        new ContextVersionMemo(new CapabilityCacheFile(path)).succeeded(1L, "driver", data, candidates.get(7),
+                () -> "old renderer");
+
+        new ContextVersionMemo(new CapabilityCacheFile(path)).succeeded(1L, "driver", data, candidates.get(8),
+                () -> "new renderer");
+
+        String contents = new String(Files.readAllBytes(path), StandardCharsets.ISO_8859_1);
+        assertTrue(contents.contains("3.2|new renderer"));
+        assertFalse(contents.contains("old renderer"));
+    }
+
+    @Test
+    void unreadableEntriesAreIgnored(@TempDir Path directory) throws Exception {
+        Path path = directory.resolve("capabilities.properties");
+        GLData data = highest();
+        List<GLUtil.ContextVersion> candidates = GLUtil.contextVersionCandidates(data, 4, 6);
+        new ContextVersionMemo(new CapabilityCacheFile(path)).succeeded(1L, "driver", data, candidates.get(7),
+                () -> "renderer");
+        String contents = new String(Files.readAllBytes(path), StandardCharsets.ISO_8859_1);
+        Files.write(path, contents.replace("3.3|", "x.y|").getBytes(StandardCharsets.ISO_8859_1));
+
+        ContextVersionMemo restarted = new ContextVersionMemo(new CapabilityCacheFile(path));
+
+        assertNull(restarted.preferred(1L, "driver", data, candidates));
+    }
+
+    private static GLData highest() {
+        GLData data = new GLData();
+        data.versionPolicy = GLData.VersionPolicy.HIGHEST;
+        data.profile = GLData.Profile.CORE;
+        return data;
+    }
+}
@@ -0,0 +1,161 @@
+package org.lwjgl.opengl.awt;
+
+import org.junit.jupiter.api.Test;
+
+import java.awt.AWTException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ContextVersionProbeTest {
+
+    @Test
+    void findsHighestSupportedVersionInLogarithmicAttempts() throws Exception {
+        List<GLUtil.ContextVersion> candidates = GLUtil.contextVersionCandidates(highest(), 4, 6);
+        for (int supported = 0; supported < candidates.size(); supported++) {
+            Driver driver = new Driver(candidates, supported);
+
+            ContextVersionProbe probe = ContextVersionProbe.probe(candidates, null, created -> true, driver::create,
+                    driver::destroy);
+
+            assertSame(candidates.get(supported), probe.version);
+            assertTrue(probe.attempts <= 5, "attempts: " + probe.attempts);
+            assertEquals(Arrays.asList(probe.context), driver.alive);
+        }
+    }
+
+    @Test
+    void triesPreferredVersionFirst() throws Exception {
+        List<GLUtil.ContextVersion> candidates = GLUtil.contextVersionCandidates(highest(), 4, 6);
+        Driver driver = new Driver(candidates, 7);
+
+        ContextVersionProbe probe = ContextVersionProbe.probe(candidates, candidates.get(7), created -> true, driver::create,
+                driver::destroy);
+
+        assertEquals("3.3", probe.version.toString());
+        assertEquals(1, probe.attempts);
+    }
+
+    @Test
+    void searchesAboveUnverifiedPreferredVersion() throws Exception {
+        List<GLUtil.ContextVersion> candidates = GLUtil.contextVersionCandidates(highest(), 4, 6);
+        // The driver was updated since 3.3 was remembered.
+        Driver driver = new Driver(candidates, 2);
+
+        ContextVersionProbe probe = ContextVersionProbe.probe(candidates, candidates.get(7), created -> false, driver::create,
+                driver::destroy);
+
+        assertSame(candidates.get(2), probe.version);
+        assertEquals(Arrays.asList(probe.context), driver.alive);
+    }
+
+    @Test
+    void unverifiedPreferredVersionAtTheTopNeedsOneAttempt() throws Exception {
+        List<GLUtil.ContextVersion> candidates = GLUtil.contextVersionCandidates(highest(), 4, 6);
+        Driver driver = new Driver(candidates, 0);
+
+        ContextVersionProbe probe = ContextVersionProbe.probe(candidates, candidates.get(0), created -> false, driver::create,
+                driver::destroy);
+
+        assertSame(candidates.get(0), probe.version);
+        assertEquals(1, probe.attempts);
+    }
+
+    @Test
+    void searchesWhenPreferredVersionFails() throws Exception {
+        List<GLUtil.ContextVersion> candidates = GLUtil.contextVersionCandidates(highest(), 4, 6);
+        Driver driver = new Driver(candidates, 9);
+
+        ContextVersionProbe probe = ContextVersionProbe.probe(candidates, candidates.get(7), created -> true, driver::create,
+                driver::destroy);
+
+        assertEquals(candidates.get(9), probe.version);
+        assertEquals(Arrays.asList(probe.context), driver.alive);
+    }
+
+    @Test
+    void triesRemainingCandidatesWhenTheSearchFindsNothing() throws Exception {
+        List<GLUtil.ContextVersion> candidates = GLUtil.contextVersionCandidates(highest(), 4, 6);
+        // Only a single version in the middle is accepted, which the search alone does not reach.
+        Driver driver = new Driver(candidates, 3) {
+            @Override
+            long create(GLUtil.ContextVersion version) throws AWTException {
+                return candidates.indexOf(version) == 3 ? super.create(version) : 0L;
+            }
+        };
+
+        ContextVersionProbe probe = ContextVersionProbe.probe(candidates, null, created -> true, driver::create, driver::destroy);
+
+        assertSame(candidates.get(3), probe.version);
+    }
+
+    @Test
+    void reportsAttemptsWhenNothingCanBeCreated() throws Exception {
+        List<GLUtil.ContextVersion> candidates = GLUtil.contextVersionCandidates(highest(), 4, 6);
+        Driver driver = new Driver(candidates, candidates.size());
+
+        ContextVersionProbe probe = ContextVersionProbe.probe(candidates, null, created -> true, driver::create, driver::destroy);
+
+        assertEquals(0L, probe.context);
+        assertNull(probe.version);
+        assertEquals(candidates.size(), probe.attempts);
+    }
+
+    @Test
+    void destroysCreatedContextWhenAnAttemptFails() {
+        List<GLUtil.ContextVersion> candidates = GLUtil.contextVersionCandidates(highest(), 4, 6);
+        AWTException failure = new AWTException("attempt failed");
+        Driver driver = new Driver(candidates, 0) {
+            @Override
+            long create(GLUtil.ContextVersion version) throws AWTException {
+                if (!alive.isEmpty()) {
+                    throw failure;
+                }
+                return super.create(version);
+            }
+        };
+
+        AWTException thrown = assertThrows(AWTException.class,
+                () -> ContextVersionProbe.probe(candidates, null, created -> true, driver::create, driver::destroy));
+
+        assertSame(failure, thrown);
+        assertTrue(driver.alive.isEmpty());
+    }
+
+    private static GLData highest() {
+        GLData data = new GLData();
+        data.versionPolicy = GLData.VersionPolicy.HIGHEST;
+        return data;
+    }
+
+    private static class Driver {
+        final List<GLUtil.ContextVersion> candidates;
+        final int highestSupported;
+        final List<Long> alive = new ArrayList<>();
+        long nextContext = 1L;
+
+        Driver(List<GLUtil.ContextVersion> candidates, int highestSupported) {
+            this.candidates = candidates;
+            this.highestSupported = highestSupported;
+        }
+
+        long create(GLUtil.ContextVersion version) throws AWTException {
+            if (candidates.indexOf(version) < highestSupported) {
+                return 0L;
+            }
+            long context = nextContext++;
+            alive.add(context);
+            return context;
+        }
+
+        void destroy(long context) {
+            alive.remove(context);
+        }
+    }
+}
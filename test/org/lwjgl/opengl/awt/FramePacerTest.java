@@ -0,0 +1,84 @@
+package org.lwjgl.opengl.awt;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class FramePacerTest {
+
+    @Test
+    void rejectsInvalidTargetFrameRates() {
+        FramePacer pacer = new FramePacer();
+
+        assertThrows(IllegalArgumentException.class, () -> pacer.setTargetFrameRate(-1.0));
+        assertThrows(IllegalArgumentException.class, () -> pacer.setTargetFrameRate(Double.NaN));
+        assertThrows(IllegalArgumentException.class, () -> pacer.setTargetFrameRate(Double.POSITIVE_INFINITY));
+        assertEquals(0.0, pacer.getTargetFrameRate());
+    }
+
+    @Test
+    void doesNotWaitWithoutTargetFrameRate() {
+        FramePacer pacer = new FramePacer();
+
+        assertEquals(0L, pacer.awaitFrame());
+        assertEquals(Long.MAX_VALUE, pacer.getRemainingFrameNanos());
+    }
+
+    @Test
+    void spacesFrameStartsByTheTargetPeriod() {
+        FramePacer pacer = new FramePacer();
+        pacer.setTargetFrameRate(100.0);
+        long period = pacer.getTargetFrameNanos();
+        assertEquals(TimeUnit.MILLISECONDS.toNanos(10L), period);
+
+        long firstDeadline = pacer.awaitFrame();
+        long start = System.nanoTime();
+        for (int i = 0; i < 5; i++) {
+            long deadline = pacer.awaitFrame();
+            assertTrue(System.nanoTime() >= deadline - period, "Frame started before its time slot");
+        }
+        long elapsed = System.nanoTime() - start;
+
+        assertTrue(elapsed >= 4 * period, "Five paced frames took only " + elapsed + " ns");
+        assertEquals(firstDeadline + 5 * period, pacer.getFrameDeadline());
+        assertTrue(pacer.getRemainingFrameNanos() <= period);
+    }
+
+    @Test
+    void startsNewScheduleInsteadOfCatchingUpAfterALateFrame() throws InterruptedException {
+        FramePacer pacer = new FramePacer();
+        pacer.setTargetFrameRate(200.0);
+        pacer.awaitFrame();
+        Thread.sleep(50L);
+
+        long before = System.nanoTime();
+        long deadline = pacer.awaitFrame();
+
+        assertTrue(deadline - before >= pacer.getTargetFrameNanos() - TimeUnit.MILLISECONDS.toNanos(1L));
+        assertTrue(deadline - before <= pacer.getTargetFrameNanos() + TimeUnit.MILLISECONDS.toNanos(5L));
+    }
+
+    @Test
+    void separatesCpuAndSwapCost() {
+        FramePacer pacer = new FramePacer();
+
+        pacer.frameStarted();
+        pacer.swapped(3_000L);
+        pacer.frameRendered(10_000L);
+
+        assertEquals(7_000L, pacer.getAverageCpuNanos());
+        assertEquals(3_000L, pacer.getAverageSwapNanos());
+        assertEquals(10_000L, pacer.getAverageFrameNanos());
+
+        pacer.frameStarted();
+        pacer.swapped(3_000L);
+        pacer.frameRendered(20_000L);
+
+        assertEquals(8_000L, pacer.getAverageCpuNanos());
+        assertEquals(3_000L, pacer.getAverageSwapNanos());
+    }
+}
@@ -8,6 +8,7 @@ import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
@@ -90,6 +91,30 @@ class GLUtilTest {
         assertFalse(GLUtil.validVersionGLES(3, 3));
     }
 
+    @Test
+    void rejectsNoErrorTogetherWithDebugOrRobustness() {
+        GLData noError = new GLData();
+        noError.noError = true;
+        GLUtil.validateAttributes(noError);
+
+        GLData debug = new GLData();
+        debug.noError = true;
+        debug.debug = true;
+        assertThrows(IllegalArgumentException.class, () -> GLUtil.validateAttributes(debug));
+
+        GLData robust = new GLData();
+        robust.noError = true;
+        robust.robustness = true;
+        assertThrows(IllegalArgumentException.class, () -> GLUtil.validateAttributes(robust));
+    }
+
+    @Test
+    void mapsQueriedReleaseBehaviors() {
+        assertEquals(GLData.ReleaseBehavior.FLUSH, GLUtil.releaseBehavior(0x82FC));
+        assertEquals(GLData.ReleaseBehavior.NONE, GLUtil.releaseBehavior(0));
+        assertNull(GLUtil.releaseBehavior(0x1234));
+    }
+
     private static List<String> candidates(GLData data, int maximumMajor, int maximumMinor) {
         List<String> versions = new ArrayList<>();
         for (GLUtil.ContextVersion version :
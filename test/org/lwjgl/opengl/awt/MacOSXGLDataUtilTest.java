@@ -172,6 +172,7 @@ class MacOSXGLDataUtilTest {
         }, "coverage sampling");
         assertUnsupported(data -> data.swapGroupNV = 1, "swap groups");
         assertUnsupported(data -> data.robustness = true, "robustness");
+        assertUnsupported(data -> data.noError = true, "no-error");
         assertUnsupported(data -> {
             data.majorVersion = 3;
             data.minorVersion = 2;
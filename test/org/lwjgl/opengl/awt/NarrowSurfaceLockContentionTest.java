@@ -0,0 +1,159 @@
+package org.lwjgl.opengl.awt;
+
+import org.junit.jupiter.api.Test;
+
+import java.awt.Canvas;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.ReentrantLock;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Renders several canvases on their own threads against platform canvases whose drawing surface locks share one lock,
+ * like the AWT toolkit lock that JAWT takes on X11.
+ */
+class NarrowSurfaceLockContentionTest {
+    private static final int CANVASES = 4;
+    private static final int FRAMES = 10;
+    /** Stands in for the application's OpenGL command submission. */
+    private static final long PAINT_MILLIS = 10L;
+
+    @Test
+    void narrowSurfaceLockLetsCanvasesPaintConcurrently() throws Exception {
+        long wideNanos = renderConcurrently(false);
+        long narrowNanos = renderConcurrently(true);
+
+        // Fully serialized painting takes CANVASES times as long as fully concurrent painting.
+        assertTrue(narrowNanos * 2 < wideNanos,
+                "Narrow locking took " + TimeUnit.NANOSECONDS.toMillis(narrowNanos) + " ms, wide locking "
+                        + TimeUnit.NANOSECONDS.toMillis(wideNanos) + " ms");
+    }
+
+    private static long renderConcurrently(boolean narrowSurfaceLock) throws Exception {
+        ReentrantLock toolkitLock = new ReentrantLock();
+        List<SharedLockPlatformCanvas> platforms = new ArrayList<>();
+        List<Thread> threads = new ArrayList<>();
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        for (int i = 0; i < CANVASES; i++) {
+            SharedLockPlatformCanvas platform = new SharedLockPlatformCanvas(toolkitLock);
+            platforms.add(platform);
+            AWTGLCanvas canvas = new AWTGLCanvas(new GLData()) {
+                {
+                    platformCanvas = platform;
+                }
+
+                @Override
+                public void initGL() {
+                }
+
+                @Override
+                public void paintGL() {
+                    try {
+                        Thread.sleep(PAINT_MILLIS);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    swapBuffers();
+                }
+            };
+            canvas.setNarrowSurfaceLock(narrowSurfaceLock);
+            Thread thread = new Thread(() -> {
+                try {
+                    start.await();
+                    for (int frame = 0; frame < FRAMES; frame++) {
+                        canvas.render();
+                    }
+                } catch (Throwable t) {
+                    failure.compareAndSet(null, t);
+                }
+            }, "contention-renderer-" + i);
+            thread.setDaemon(true);
+            threads.add(thread);
+            thread.start();
+        }
+
+        long begin = System.nanoTime();
+        start.countDown();
+        for (Thread thread : threads) {
+            thread.join(TimeUnit.SECONDS.toMillis(30));
+        }
+        long elapsed = System.nanoTime() - begin;
+
+        if (failure.get() != null) {
+            throw new AssertionError("Rendering failed", failure.get());
+        }
+        for (SharedLockPlatformCanvas platform : platforms) {
+            assertEquals(FRAMES, platform.swaps);
+        }
+        return elapsed;
+    }
+
+    private static final class SharedLockPlatformCanvas implements PlatformGLCanvas {
+        private final ReentrantLock toolkitLock;
+        private final ThreadLocal<Long> currentContext = ThreadLocal.withInitial(() -> 0L);
+        volatile int swaps;
+
+        SharedLockPlatformCanvas(ReentrantLock toolkitLock) {
+            this.toolkitLock = toolkitLock;
+        }
+
+        @Override
+        public long create(Canvas canvas, GLData data, GLData effective) {
+            return 42L;
+        }
+
+        @Override
+        public boolean deleteContext(long context) {
+            return true;
+        }
+
+        @Override
+        public boolean makeCurrent(long context) {
+            assertTrue(toolkitLock.isHeldByCurrentThread());
+            currentContext.set(context);
+            return true;
+        }
+
+        @Override
+        public boolean isCurrent(long context) {
+            return currentContext.get() == context;
+        }
+
+        @Override
+        public boolean swapBuffers() {
+            assertTrue(toolkitLock.isHeldByCurrentThread());
+            swaps++;
+            return true;
+        }
+
+        @Override
+        public boolean delayBeforeSwapNV(float seconds) {
+            return false;
+        }
+
+        @Override
+        public boolean supportsUnlockedRendering() {
+            return true;
+        }
+
+        @Override
+        public void lock() {
+            toolkitLock.lock();
+        }
+
+        @Override
+        public void unlock() {
+            toolkitLock.unlock();
+        }
+
+        @Override
+        public void dispose() {
+        }
+    }
+}
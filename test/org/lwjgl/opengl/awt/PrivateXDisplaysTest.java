@@ -0,0 +1,109 @@
+package org.lwjgl.opengl.awt;
+
+import org.junit.jupiter.api.Test;
+
+import java.awt.AWTException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class PrivateXDisplaysTest {
+
+    @Test
+    void oneConnectionIsOpenedPerServer() throws AWTException {
+        RecordingConnector connector = new RecordingConnector();
+        connector.names.put(1L, ":0");
+        connector.names.put(2L, ":1");
+        PrivateXDisplays displays = new PrivateXDisplays(connector);
+
+        long first = displays.connectTo(1L);
+        long second = displays.connectTo(1L);
+        long other = displays.connectTo(2L);
+
+        assertEquals(first, second);
+        assertNotEquals(first, other);
+        assertEquals(2, connector.opened.size());
+    }
+
+    @Test
+    void awtDisplayIsSynchronizedOnEveryConnect() throws AWTException {
+        RecordingConnector connector = new RecordingConnector();
+        connector.names.put(1L, ":0");
+        PrivateXDisplays displays = new PrivateXDisplays(connector);
+
+        displays.connectTo(1L);
+        displays.connectTo(1L);
+
+        assertEquals(2, connector.synced.size());
+        assertEquals(1L, (long) connector.synced.get(1));
+    }
+
+    @Test
+    void failedConnectionIsRetried() throws AWTException {
+        RecordingConnector connector = new RecordingConnector();
+        connector.names.put(1L, ":0");
+        connector.failures = 1;
+        PrivateXDisplays displays = new PrivateXDisplays(connector);
+
+        assertThrows(AWTException.class, () -> displays.connectTo(1L));
+        displays.connectTo(1L);
+
+        assertEquals(1, connector.opened.size());
+    }
+
+    @Test
+    void missingAwtDisplayIsRejected() {
+        PrivateXDisplays displays = new PrivateXDisplays(new RecordingConnector());
+
+        assertThrows(AWTException.class, () -> displays.connectTo(0L));
+    }
+
+    @Test
+    void connectionIsRefusedWithoutThreadSupport() {
+        RecordingConnector connector = new RecordingConnector();
+        connector.names.put(1L, ":0");
+        connector.threadsInitialized = false;
+        PrivateXDisplays displays = new PrivateXDisplays(connector);
+
+        assertThrows(AWTException.class, () -> displays.connectTo(1L));
+        assertEquals(0, connector.opened.size());
+    }
+
+    private static final class RecordingConnector implements PrivateXDisplays.Connector {
+        final Map<Long, String> names = new HashMap<>();
+        final List<Long> synced = new ArrayList<>();
+        final List<String> opened = new ArrayList<>();
+        int failures;
+        boolean threadsInitialized = true;
+
+        @Override
+        public boolean threadsInitialized() {
+            return threadsInitialized;
+        }
+
+        @Override
+        public String getName(long display) {
+            return names.get(display);
+        }
+
+        @Override
+        public void sync(long display) {
+            synced.add(display);
+        }
+
+        @Override
+        public long open(String name) throws AWTException {
+            if (failures > 0) {
+                failures--;
+                throw new AWTException("Failed to open " + name);
+            }
+            opened.add(name);
+            return 100L + opened.size();
+        }
+    }
+}
@@ -0,0 +1,198 @@
+package org.lwjgl.opengl.awt;
+
+import org.junit.jupiter.api.Test;
+
+import java.awt.Canvas;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RenderCoordinatorTest {
+    private final List<String> calls = Collections.synchronizedList(new ArrayList<>());
+
+    @Test
+    void rendersShareGroupsBackToBackOnOneThread() {
+        CoordinatedCanvas a = new CoordinatedCanvas("a", null);
+        CoordinatedCanvas b = new CoordinatedCanvas("b", null);
+        CoordinatedCanvas a2 = new CoordinatedCanvas("a2", a);
+        CoordinatedCanvas a3 = new CoordinatedCanvas("a3", a2);
+        List<Thread> threads = Collections.synchronizedList(new ArrayList<>());
+        try (RenderCoordinator coordinator = new RenderCoordinator()) {
+            for (CoordinatedCanvas canvas : Arrays.asList(a, b, a2, a3)) {
+                canvas.paintThreads = threads;
+                coordinator.register(canvas);
+            }
+
+            coordinator.renderFrame();
+
+            assertEquals(Arrays.asList(a, a2, a3, b), coordinator.getCanvases());
+            assertEquals(Arrays.asList("bind:a", "paint:a", "bind:a2", "paint:a2", "bind:a3", "paint:a3",
+                    "bind:b", "paint:b"), calls);
+            assertEquals(4, coordinator.getLastFrameCanvasCount());
+            assertTrue(coordinator.getLastFrameNanos() >= coordinator.getLastFrameNanos(a));
+            assertTrue(coordinator.getLastFrameNanos(b) >= 0L);
+        }
+        assertEquals(4, threads.size());
+        for (Thread thread : threads) {
+            assertSame(threads.get(0), thread);
+        }
+    }
+
+    @Test
+    void skipsCanvasesThatAreNotShowing() {
+        CoordinatedCanvas shown = new CoordinatedCanvas("shown", null);
+        CoordinatedCanvas hidden = new CoordinatedCanvas("hidden", null);
+        hidden.showing = false;
+        try (RenderCoordinator coordinator = new RenderCoordinator()) {
+            coordinator.register(shown);
+            coordinator.register(hidden);
+
+            coordinator.renderFrame();
+
+            assertEquals(Arrays.asList("bind:shown", "paint:shown"), calls);
+            assertEquals(1, coordinator.getLastFrameCanvasCount());
+            assertEquals(-1L, coordinator.getLastFrameNanos(hidden));
+        }
+    }
+
+    @Test
+    void rendersRemainingCanvasesWhenOneFails() {
+        CoordinatedCanvas failing = new CoordinatedCanvas("failing", null);
+        IllegalStateException paintFailure = new IllegalStateException("paint failed");
+        failing.paintFailure = paintFailure;
+        CoordinatedCanvas other = new CoordinatedCanvas("other", null);
+        try (RenderCoordinator coordinator = new RenderCoordinator()) {
+            coordinator.register(failing);
+            coordinator.register(other);
+
+            assertSame(paintFailure, assertThrows(IllegalStateException.class, coordinator::renderFrame));
+            assertEquals(Arrays.asList("bind:failing", "paint:failing", "bind:other", "paint:other"), calls);
+        }
+    }
+
+    @Test
+    void unregisteredCanvasRendersOnCallingThreadAndCanOwnARenderThread() {
+        CoordinatedCanvas canvas = new CoordinatedCanvas("canvas", null);
+        try (RenderCoordinator coordinator = new RenderCoordinator()) {
+            coordinator.register(canvas);
+            assertThrows(IllegalStateException.class, canvas::stopRenderThread);
+            coordinator.renderFrame();
+            calls.clear();
+
+            coordinator.unregister(canvas);
+            canvas.render();
+
+            assertEquals(Arrays.asList("release:canvas", "bind:canvas", "paint:canvas", "release:canvas"), calls);
+            canvas.startRenderThread();
+            canvas.stopRenderThread();
+        }
+    }
+
+    private final class CoordinatedCanvas extends AWTGLCanvas {
+        private final String name;
+        boolean showing = true;
+        RuntimeException paintFailure;
+        List<Thread> paintThreads;
+
+        CoordinatedCanvas(String name, AWTGLCanvas shareContext) {
+            super(shareData(shareContext));
+            this.name = name;
+            this.platformCanvas = new NamedPlatformCanvas(name);
+        }
+
+        @Override
+        public boolean isShowing() {
+            return showing;
+        }
+
+        @Override
+        public int getWidth() {
+            return 10;
+        }
+
+        @Override
+        public int getHeight() {
+            return 10;
+        }
+
+        @Override
+        public void initGL() {
+        }
+
+        @Override
+        public void paintGL() {
+            calls.add("paint:" + name);
+            if (paintThreads != null) {
+                paintThreads.add(Thread.currentThread());
+            }
+            if (paintFailure != null) {
+                throw paintFailure;
+            }
+        }
+    }
+
+    private static GLData shareData(AWTGLCanvas shareContext) {
+        GLData data = new GLData();
+        data.shareContext = shareContext;
+        return data;
+    }
+
+    private final class NamedPlatformCanvas implements PlatformGLCanvas {
+        private final String name;
+        private final ThreadLocal<Long> current = ThreadLocal.withInitial(() -> 0L);
+
+        NamedPlatformCanvas(String name) {
+            this.name = name;
+        }
+
+        @Override
+        public long create(Canvas canvas, GLData data, GLData effective) {
+            return 1L;
+        }
+
+        @Override
+        public boolean deleteContext(long context) {
+            return true;
+        }
+
+        @Override
+        public boolean makeCurrent(long context) {
+            calls.add((context == 0L ? "release:" : "bind:") + name);
+            current.set(context);
+            return true;
+        }
+
+        @Override
+        public boolean isCurrent(long context) {
+            return current.get() == context;
+        }
+
+        @Override
+        public boolean swapBuffers() {
+            return true;
+        }
+
+        @Override
+        public boolean delayBeforeSwapNV(float seconds) {
+            return false;
+        }
+
+        @Override
+        public void lock() {
+        }
+
+        @Override
+        public void unlock() {
+        }
+
+        @Override
+        public void dispose() {
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package org.lwjgl.opengl.awt;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class XErrorTrapTest {
+
+    @Test
+    void errorsAreAttributedToTheTrapOfTheirDisplay() {
+        XErrorTrap first = XErrorTrap.register(101L, 10L);
+        XErrorTrap second = XErrorTrap.register(102L, 10L);
+        try {
+            assertTrue(XErrorTrap.record(102L, 12L, 8));
+
+            assertEquals(0, first.getErrorCode());
+            assertEquals(8, second.getErrorCode());
+        } finally {
+            first.unregister();
+            second.unregister();
+        }
+    }
+
+    @Test
+    void errorsOfEarlierRequestsAreNotClaimed() {
+        XErrorTrap trap = XErrorTrap.register(103L, 10L);
+        try {
+            assertFalse(XErrorTrap.record(103L, 9L, 8));
+            assertEquals(0, trap.getErrorCode());
+        } finally {
+            trap.unregister();
+        }
+    }
+
+    @Test
+    void errorsAfterUnregisteringAreNotClaimed() {
+        XErrorTrap trap = XErrorTrap.register(104L, 10L);
+        trap.unregister();
+
+        assertFalse(XErrorTrap.record(104L, 11L, 8));
+        assertFalse(XErrorTrap.record(105L, 11L, 8));
+        assertEquals(0, trap.getErrorCode());
+    }
+
+    @Test
+    void firstErrorCodeIsKept() {
+        XErrorTrap trap = XErrorTrap.register(106L, 10L);
+        try {
+            assertTrue(XErrorTrap.record(106L, 10L, 8));
+            assertTrue(XErrorTrap.record(106L, 11L, 2));
+            assertEquals(8, trap.getErrorCode());
+        } finally {
+            trap.unregister();
+        }
+    }
+}
@@ -0,0 +1,126 @@
+package org.lwjgl.opengl.awt;
+
+import org.junit.jupiter.api.Test;
+import org.lwjgl.system.APIUtil;
+import org.lwjgl.system.Callback;
+import org.lwjgl.system.CallbackI;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.lwjgl.system.MemoryUtil.*;
+import static org.lwjgl.system.Pointer.POINTER_SIZE;
+import static org.lwjgl.system.libffi.LibFFI.*;
+
+/**
+ * Runs the prepared {@code XGetGeometry} call against a native stand-in, so the argument layout and the allocation
+ * behavior are checked without an X server.
+ */
+class XGeometryTest {
+    private static final int WARM_UP_QUERIES = 20_000;
+    private static final int MEASURED_QUERIES = 10_000;
+    private static final long MAX_ALLOCATED_BYTES = 1024L;
+
+    @Test
+    void sizeIsReadFromTheWidthAndHeightArguments() {
+        long[] received = new long[2];
+        long function = ((XGetGeometryI) (display, drawable, geometry) -> {
+            received[0] = display;
+            received[1] = drawable;
+            memPutAddress(geometry[0], 7L);
+            memPutInt(geometry[1], 3);
+            memPutInt(geometry[2], 4);
+            memPutInt(geometry[3], 640);
+            memPutInt(geometry[4], 480);
+            memPutInt(geometry[5], 0);
+            memPutInt(geometry[6], 24);
+            return 1;
+        }).address();
+        try {
+            int[] size = new int[2];
+            assertTrue(XGeometry.getSize(function, 0x1234L, 0x5678L, size));
+
+            assertArrayEquals(new long[] {0x1234L, 0x5678L}, received);
+            assertArrayEquals(new int[] {640, 480}, size);
+        } finally {
+            Callback.free(function);
+        }
+    }
+
+    @Test
+    void failedQueryLeavesSizeUnchanged() {
+        long function = ((XGetGeometryI) (display, drawable, geometry) -> 0).address();
+        try {
+            int[] size = {1, 2};
+            assertFalse(XGeometry.getSize(function, 0x1234L, 0x5678L, size));
+
+            assertArrayEquals(new int[] {1, 2}, size);
+        } finally {
+            Callback.free(function);
+        }
+    }
+
+    @Test
+    void steadyStateQueryDoesNotAllocate() {
+        com.sun.management.ThreadMXBean threads = AWTGLCanvasAllocationTest.threadMXBean();
+        // Calls through the prepared interface from a native frame, as the canvas does on every frame.
+        long function = ((XGetGeometryI) (display, drawable, geometry) -> {
+            memPutInt(geometry[3], 800);
+            memPutInt(geometry[4], 600);
+            return 1;
+        }).address();
+        try {
+            int[] size = new int[2];
+            for (int i = 0; i < WARM_UP_QUERIES; i++) {
+                XGeometry.getSize(function, 1L, 2L, size);
+            }
+            long thread = Thread.currentThread().getId();
+            long before = threads.getThreadAllocatedBytes(thread);
+            for (int i = 0; i < MEASURED_QUERIES; i++) {
+                XGeometry.getSize(function, 1L, 2L, size);
+            }
+            long allocated = threads.getThreadAllocatedBytes(thread) - before;
+
+            assertEquals(800, size[0]);
+            assertTrue(allocated < MAX_ALLOCATED_BYTES,
+                    MEASURED_QUERIES + " size queries allocated " + allocated + " bytes");
+        } finally {
+            Callback.free(function);
+        }
+    }
+
+    @FunctionalInterface
+    interface XGetGeometryI extends CallbackI {
+        Callback.Descriptor DESCRIPTOR = new Callback.Descriptor(
+                XGetGeometryI.class,
+                java.lang.invoke.MethodHandles.lookup(),
+                XGeometry.XGetGeometryCIF.CIF);
+
+        @Override
+        default Callback.Descriptor getDescriptor() {
+            return DESCRIPTOR;
+        }
+
+        @Override
+        default void callback(long returnValue, long arguments) {
+            long[] geometry = GEOMETRY.get();
+            for (int i = 0; i < geometry.length; i++) {
+                geometry[i] = memGetAddress(memGetAddress(arguments + (2 + i) * POINTER_SIZE));
+            }
+            int result = invoke(
+                    memGetAddress(memGetAddress(arguments)),
+                    memGetAddress(memGetAddress(arguments + POINTER_SIZE)),
+                    geometry);
+            // libffi expects integral results widened to ffi_arg.
+            memPutAddress(returnValue, result);
+        }
+
+        /**
+         * @param geometry the addresses of the root, x, y, width, height, border width and depth results
+         */
+        int invoke(long display, long drawable, long[] geometry);
+    }
+
+    private static final ThreadLocal<long[]> GEOMETRY = ThreadLocal.withInitial(() -> new long[7]);
+}